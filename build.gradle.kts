@@ -19,6 +19,7 @@ plugins {
     id("java-library")
     id("net.linguica.maven-settings") version "0.5"
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 val isRelease = System.getenv("RELEASE") == "true"
@@ -66,4 +67,19 @@ dependencies {
     api("io.github.classgraph:classgraph:4.8.174")
     implementation("org.apache.logging.log4j:log4j-api:2.23.1")
     compileOnly("org.jetbrains:annotations:24.0.0")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testCompileOnly("org.jetbrains:annotations:24.0.0")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
 }
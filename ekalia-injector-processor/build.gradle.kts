@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+plugins {
+    id("java")
+    id("java-library")
+    id("maven-publish")
+}
+
+val isRelease = System.getenv("RELEASE") == "true"
+
+val nexusUser = System.getenv()["NEXUS_USER"]
+val nexusPass = System.getenv()["NEXUS_PASS"]
+val isInCi = nexusUser != null && nexusPass != null
+
+group = rootProject.group
+version = rootProject.version
+
+repositories {
+    mavenCentral()
+}
+
+publishing {
+    publications {
+        create<MavenPublication>("mavenJava") {
+            from(components["java"])
+        }
+    }
+
+    repositories {
+        maven("https://nexus.ekalia.fr/repository/maven-${if (isRelease) "releases" else "snapshots"}/") {
+            if (isInCi) {
+                credentials {
+                    username = nexusUser
+                    password = nexusPass
+                }
+            } else { // Local
+                name = "ekalia"
+            }
+        }
+    }
+}
+
+dependencies {
+    implementation(rootProject)
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
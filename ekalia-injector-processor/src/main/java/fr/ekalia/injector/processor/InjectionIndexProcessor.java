@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.processor;
+
+import fr.ekalia.injector.annotation.Inject;
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.Provides;
+import fr.ekalia.injector.index.InjectionIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the {@link InjectionIndex#RESOURCE} index of the classes annotated with {@link Provides} and of the
+ * fields annotated with {@link Inject}, so the injector can start without scanning the classpath.
+ *
+ * @author Azn9
+ */
+public class InjectionIndexProcessor extends AbstractProcessor {
+
+    private final InjectionIndex index = new InjectionIndex();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(Provides.class.getName(), Inject.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Provides.class)) {
+            if (element instanceof TypeElement typeElement) {
+                this.index.addProvider(this.getBinaryName(typeElement), this.getPriority(typeElement));
+            }
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Inject.class)) {
+            if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement owner) {
+                this.index.addInjectedField(this.getBinaryName(owner), element.getSimpleName().toString());
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            this.writeIndex();
+        }
+
+        return false;
+    }
+
+    private void writeIndex() {
+        if (this.index.getProviders().isEmpty() && this.index.getInjectedFields().isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject resource = super.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", InjectionIndex.RESOURCE);
+
+            try (Writer writer = resource.openWriter()) {
+                this.index.write(writer);
+            }
+        } catch (IOException e) {
+            super.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + InjectionIndex.RESOURCE + ": " + e.getMessage());
+        }
+    }
+
+    private String getBinaryName(TypeElement typeElement) {
+        // Nested classes must be stored as Outer$Inner to be loadable with Class.forName
+        return super.processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+
+    private InjectPriority getPriority(TypeElement typeElement) {
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            if (!((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(Provides.class.getName())) {
+                continue;
+            }
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("priority") && entry.getValue().getValue() instanceof VariableElement constant) {
+                    return InjectPriority.valueOf(constant.getSimpleName().toString());
+                }
+            }
+        }
+
+        return InjectPriority.NORMAL;
+    }
+}
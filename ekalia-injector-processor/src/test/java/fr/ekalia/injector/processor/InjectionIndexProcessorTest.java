@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.processor;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.Provides;
+import fr.ekalia.injector.index.InjectionIndex;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles sources with the {@link InjectionIndexProcessor} and checks the generated {@link InjectionIndex#RESOURCE}.
+ *
+ * @author Azn9
+ */
+class InjectionIndexProcessorTest {
+
+    private static final Map<String, String> SOURCES = Map.of(
+            "app.Database", """
+                    package app;
+
+                    @fr.ekalia.injector.annotation.Provides(priority = fr.ekalia.injector.annotation.InjectPriority.HIGH)
+                    public class Database {
+                    }
+                    """,
+            "app.Outer", """
+                    package app;
+
+                    public class Outer {
+
+                        @fr.ekalia.injector.annotation.Inject
+                        private static Database database;
+
+                        @fr.ekalia.injector.annotation.Provides
+                        public static class Inner {
+                        }
+
+                        public static class Holder {
+
+                            @fr.ekalia.injector.annotation.Inject
+                            private static Inner inner;
+                        }
+                    }
+                    """,
+            "app.Consumer", """
+                    package app;
+
+                    public class Consumer {
+
+                        @fr.ekalia.injector.annotation.Inject
+                        private static Database database;
+
+                        @fr.ekalia.injector.annotation.Inject
+                        private static Outer.Inner inner;
+
+                        private static Database notInjected;
+                    }
+                    """
+    );
+
+    @Test
+    void indexListsProvidersAndInjectedFields() throws IOException, URISyntaxException {
+        Path directory = Files.createTempDirectory("ekalia-injector-processor");
+
+        try {
+            InjectionIndex index = InjectionIndexProcessorTest.compile(directory);
+
+            // Nested classes are stored with their binary name, as Class.forName expects it
+            assertEquals(Map.of("app.Database", InjectPriority.HIGH, "app.Outer$Inner", InjectPriority.NORMAL), index.getProviders());
+            assertEquals(Map.of(
+                    "app.Outer", Set.of("database"),
+                    "app.Outer$Holder", Set.of("inner"),
+                    "app.Consumer", Set.of("database", "inner")
+            ), index.getInjectedFields().entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> Set.copyOf(entry.getValue()))));
+        } finally {
+            InjectionIndexProcessorTest.delete(directory);
+        }
+    }
+
+    private static InjectionIndex compile(Path directory) throws IOException, URISyntaxException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "The processor test needs a JDK");
+
+        List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : InjectionIndexProcessorTest.SOURCES.entrySet()) {
+            Path file = directory.resolve("src").resolve(source.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue(), StandardCharsets.UTF_8);
+            files.add(file);
+        }
+
+        // The annotations are compiled with the injector, wherever the build put it
+        String injectorClasspath = Path.of(Provides.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromPaths(files);
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    List.of("-classpath", injectorClasspath, "-d", classes.toString()), null, compilationUnits);
+            task.setProcessors(List.of(new InjectionIndexProcessor()));
+
+            assertTrue(task.call(), "The sources cannot be compiled");
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(classes.resolve(InjectionIndex.RESOURCE), StandardCharsets.UTF_8)) {
+            return InjectionIndex.read(reader);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -16,3 +16,5 @@
 
 rootProject.name = "ekalia-injector"
 
+
+include("ekalia-injector-processor")
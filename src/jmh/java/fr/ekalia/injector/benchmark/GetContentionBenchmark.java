@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import fr.ekalia.injector.Injector;
+import fr.ekalia.injector.annotation.InjectPriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of {@link Injector#get(Class)} and {@link Injector#getOrNull(Class)} from several threads,
+ * alone and while services keep being registered.
+ *
+ * @author Azn9
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetContentionBenchmark {
+
+    private static final InjectPriority[] PRIORITIES = InjectPriority.values();
+
+    private final Injector injector = new Injector();
+    private int registrations;
+
+    public GetContentionBenchmark() {
+        this.injector.registerInjection(new Service() {
+        });
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getOrNull() {
+        return this.injector.getOrNull(Service.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Service> get() {
+        return this.injector.get(Service.class);
+    }
+
+    @Benchmark
+    @Group("registering")
+    @GroupThreads(3)
+    public Object getOrNullWhileRegistering() {
+        return this.injector.getOrNull(Service.class);
+    }
+
+    @Benchmark
+    @Group("registering")
+    @GroupThreads(1)
+    public void register() {
+        this.injector.registerInjection(new Service() {
+        }, GetContentionBenchmark.PRIORITIES[this.registrations++ % GetContentionBenchmark.PRIORITIES.length]);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import fr.ekalia.injector.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Injector#injectAtRuntime(Object)} of a {@link Service} after the injection of a synthetic
+ * classpath, where half of the classes have a field accepting it.
+ *
+ * @author Azn9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectAtRuntimeBenchmark {
+
+    private static final String PACKAGE = "fr.ekalia.injector.benchmark.runtime";
+
+    @Param({"100", "1000", "10000"})
+    private int classes;
+
+    private SyntheticClasses syntheticClasses;
+    private Injector injector;
+    private final Service service = new Service() {
+    };
+    private final List<Service> services = List.of(new Service() {
+    }, new Service() {
+    });
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.syntheticClasses = SyntheticClasses.compile(SyntheticClasses.generateInjectionClasspath(InjectAtRuntimeBenchmark.PACKAGE, this.classes));
+
+        this.injector = new Injector();
+        this.injector.startInjection(this.syntheticClasses.getClassLoader(), InjectAtRuntimeBenchmark.PACKAGE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.syntheticClasses.close();
+    }
+
+    @Benchmark
+    public void injectAtRuntime() {
+        this.injector.injectAtRuntime(this.service);
+    }
+
+    @Benchmark
+    public void injectBatchAtRuntime() {
+        this.injector.injectAtRuntime(this.services);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import fr.ekalia.injector.Injector;
+import fr.ekalia.injector.annotation.Inject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost per object of {@link Injector#injectMembers(Object)} on a freshly created request handler with
+ * three injected fields, against creating the handler and setting its fields by hand.
+ *
+ * @author Azn9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectMembersBenchmark {
+
+    private final Service service = new Service() {
+    };
+    private final Repository repository = new Repository();
+    private Injector injector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.injector = new Injector();
+        this.injector.registerInjection(this.service);
+        this.injector.registerInjection(this.repository);
+
+        // Build the plan of the handler before measuring
+        this.injector.injectMembers(new RequestHandler());
+    }
+
+    @Benchmark
+    public RequestHandler manualInjection() {
+        RequestHandler handler = new RequestHandler();
+        handler.service = this.service;
+        handler.repository = this.repository;
+        handler.injector = this.injector;
+
+        return handler;
+    }
+
+    @Benchmark
+    public RequestHandler injectMembers() {
+        RequestHandler handler = new RequestHandler();
+        this.injector.injectMembers(handler);
+
+        return handler;
+    }
+
+    /**
+     * A provided class.
+     */
+    public static class Repository {
+    }
+
+    /**
+     * An object created for each request.
+     */
+    public static class RequestHandler {
+
+        @Inject
+        private Service service;
+        @Inject
+        private Repository repository;
+        @Inject
+        private Injector injector;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.registry.ProviderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves types from the {@link ProviderRegistry} while another thread keeps replacing registered classes.
+ * That every resolution returns a candidate is checked by {@code ProviderRegistryStressTest}.
+ *
+ * @author Azn9
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryContentionBenchmark {
+
+    private static final List<Class<?>> TYPES = List.of(ArrayList.class, LinkedList.class, ArrayDeque.class, HashSet.class, TreeSet.class, PriorityQueue.class);
+    private static final InjectPriority[] PRIORITIES = InjectPriority.values();
+
+    private final ProviderRegistry registry = new ProviderRegistry();
+    private int writes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        for (Class<?> type : RegistryContentionBenchmark.TYPES) {
+            this.registry.put(type, InjectPriority.NORMAL, type.getDeclaredConstructor().newInstance());
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Object resolve() {
+        return this.registry.resolve(Collection.class).getT2();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void register() throws ReflectiveOperationException {
+        int write = this.writes++;
+        Class<?> type = RegistryContentionBenchmark.TYPES.get(write % RegistryContentionBenchmark.TYPES.size());
+
+        this.registry.put(type, RegistryContentionBenchmark.PRIORITIES[write % RegistryContentionBenchmark.PRIORITIES.length], type.getDeclaredConstructor().newInstance());
+    }
+
+    @Benchmark
+    public Object uncontendedResolve() {
+        return this.registry.resolve(AbstractList.class).getT2();
+    }
+}
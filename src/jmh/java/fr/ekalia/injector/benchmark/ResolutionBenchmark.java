@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import fr.ekalia.injector.Injector;
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.registry.ResolutionIndex;
+import fr.ekalia.injector.util.Multimap2;
+import fr.ekalia.injector.util.Tuple2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the resolution of an {@code @Inject} field type by scanning every registered class with a lookup in the
+ * {@link ResolutionIndex}, and with the same resolution through {@link Injector#getOrNull(Class)}, as the number of
+ * providers grows.
+ *
+ * @author Azn9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+    private static final String PACKAGE = "fr.ekalia.injector.benchmark.resolution";
+
+    @Param({"100", "1000", "10000"})
+    private int providers;
+
+    private SyntheticClasses syntheticClasses;
+    private final Multimap2<Class<?>, InjectPriority, Object> classes = new Multimap2<>();
+    private final ResolutionIndex resolutionIndex = new ResolutionIndex();
+    private final Injector injector = new Injector();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ReflectiveOperationException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < this.providers; i++) {
+            sources.put(ResolutionBenchmark.PACKAGE + ".Provider" + i, "package " + ResolutionBenchmark.PACKAGE + "; public class Provider" + i + " implements " + Service.class.getName() + " {}");
+        }
+
+        this.syntheticClasses = SyntheticClasses.compile(sources);
+
+        InjectPriority[] priorities = InjectPriority.values();
+        for (int i = 0; i < this.providers; i++) {
+            Class<?> aClass = this.syntheticClasses.load(ResolutionBenchmark.PACKAGE + ".Provider" + i);
+            Tuple2<InjectPriority, Object> entry = new Tuple2<>(priorities[i % priorities.length], aClass.getDeclaredConstructor().newInstance());
+
+            this.classes.put(aClass, entry);
+            this.resolutionIndex.add(aClass, entry);
+            this.injector.registerInjection(entry.getT2(), entry.getT1());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.syntheticClasses.close();
+    }
+
+    @Benchmark
+    public Object linearScan() {
+        Object optimalValue = null;
+        InjectPriority optimalPriority = null;
+
+        for (Map.Entry<Class<?>, Tuple2<InjectPriority, Object>> entry : this.classes.entrySet()) {
+            if (!Service.class.isAssignableFrom(entry.getKey())) {
+                continue;
+            }
+
+            InjectPriority priority = entry.getValue().getT1();
+            if (optimalValue == null || priority.ordinal() > optimalPriority.ordinal()) {
+                optimalValue = entry.getValue().getT2();
+                optimalPriority = priority;
+            }
+        }
+
+        return optimalValue;
+    }
+
+    @Benchmark
+    public Object indexedLookup() {
+        return this.resolutionIndex.resolve(Service.class).getT2();
+    }
+
+    @Benchmark
+    public Object injectorLookup() {
+        return this.injector.getOrNull(Service.class);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import fr.ekalia.injector.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full {@link Injector#startInjection(ClassLoader, String...)} on a synthetic classpath: scan, class
+ * loading, provider creation and field injection. Each iteration uses a new class loader so classes are loaded and
+ * initialised again.
+ *
+ * @author Azn9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartInjectionBenchmark {
+
+    private static final String PACKAGE = "fr.ekalia.injector.benchmark.startup";
+
+    @Param({"100", "1000", "10000"})
+    private int classes;
+
+    private SyntheticClasses syntheticClasses;
+    private ClassLoader classLoader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.syntheticClasses = SyntheticClasses.compile(SyntheticClasses.generateInjectionClasspath(StartInjectionBenchmark.PACKAGE, this.classes));
+    }
+
+    @Setup(Level.Iteration)
+    public void newClassLoader() {
+        this.classLoader = this.syntheticClasses.newClassLoader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.syntheticClasses.close();
+    }
+
+    @Benchmark
+    public Injector startInjection() {
+        Injector injector = new Injector();
+        injector.startInjection(this.classLoader, StartInjectionBenchmark.PACKAGE);
+
+        return injector;
+    }
+}
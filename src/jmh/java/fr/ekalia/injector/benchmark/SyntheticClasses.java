@@ -0,0 +1,159 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.benchmark;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Compiles generated sources into a temporary directory and loads them in their own class loader.
+ *
+ * @author Azn9
+ */
+public final class SyntheticClasses implements AutoCloseable {
+
+    private final Path directory;
+    private final URLClassLoader classLoader;
+    private final List<URLClassLoader> classLoaders = new ArrayList<>();
+
+    private SyntheticClasses(Path directory) {
+        this.directory = directory;
+        this.classLoader = this.newClassLoader();
+    }
+
+    /**
+     * Generates a classpath of classes annotated with {@code @Provides} implementing {@link Service}, and of classes
+     * with fields annotated with {@code @Inject}, half of each.
+     *
+     * @param packageName The package of the generated classes.
+     * @param classes     The number of classes to generate.
+     * @return The sources, keyed by the fully qualified name of their class.
+     */
+    public static Map<String, String> generateInjectionClasspath(String packageName, int classes) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        int providers = Math.max(1, classes / 2);
+
+        for (int i = 0; i < providers; i++) {
+            sources.put(packageName + ".Provider" + i, "package " + packageName + ";\n"
+                    + "@fr.ekalia.injector.annotation.Provides\n"
+                    + "public class Provider" + i + " implements " + Service.class.getName() + " {}\n");
+        }
+
+        for (int i = 0; i < classes - providers; i++) {
+            sources.put(packageName + ".Consumer" + i, "package " + packageName + ";\n"
+                    + "public class Consumer" + i + " {\n"
+                    + "    @fr.ekalia.injector.annotation.Inject private static Provider" + (i % providers) + " provider;\n"
+                    + "    @fr.ekalia.injector.annotation.Inject private static " + Service.class.getName() + " service;\n"
+                    + "}\n");
+        }
+
+        return sources;
+    }
+
+    /**
+     * Compiles the given sources against the benchmark classpath.
+     *
+     * @param sources The sources, keyed by the fully qualified name of their class.
+     * @return The compiled classes.
+     * @throws IOException If the sources cannot be written or compiled.
+     */
+    public static SyntheticClasses compile(Map<String, String> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Synthetic classes need a JDK to be compiled");
+        }
+
+        Path directory = Files.createTempDirectory("ekalia-injector-benchmark");
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-nowarn", "-classpath", System.getProperty("java.class.path"), "-d", directory.toString()));
+
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = directory.resolve(source.getKey().replace('.', '/') + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue(), StandardCharsets.UTF_8);
+            arguments.add(file.toString());
+        }
+
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IOException("Cannot compile synthetic classes");
+        }
+
+        return new SyntheticClasses(directory);
+    }
+
+    /**
+     * Creates a new class loader for the compiled classes, so they are loaded and initialised again.
+     *
+     * @return The class loader, closed with the compiled classes.
+     */
+    public URLClassLoader newClassLoader() {
+        URLClassLoader newClassLoader;
+        try {
+            newClassLoader = new URLClassLoader(new URL[]{this.directory.toUri().toURL()}, SyntheticClasses.class.getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.classLoaders.add(newClassLoader);
+        return newClassLoader;
+    }
+
+    /**
+     * Loads a compiled class.
+     *
+     * @param className The fully qualified name of the class.
+     * @return The class.
+     * @throws ClassNotFoundException If the class was not compiled.
+     */
+    public Class<?> load(String className) throws ClassNotFoundException {
+        return Class.forName(className, true, this.classLoader);
+    }
+
+    /**
+     * Get the class loader of the compiled classes.
+     *
+     * @return The class loader.
+     */
+    public ClassLoader getClassLoader() {
+        return this.classLoader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (URLClassLoader aClassLoader : this.classLoaders) {
+            aClassLoader.close();
+        }
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+/**
+ * When the classes containing fields annotated with {@link fr.ekalia.injector.annotation.Inject} are initialised,
+ * that is when their static initialisers run.
+ *
+ * @author Azn9
+ */
+public enum ClassInitialization {
+
+    /**
+     * Each class is initialised as soon as it is loaded, then all its fields are read to find the injected ones.
+     * With an executor, the classes are loaded, initialised and injected by several workers.
+     */
+    EAGER,
+    /**
+     * The classes are loaded without being initialised, and only the injected fields listed by the scan are read.
+     * The classes are then injected one by one in the order of the scan, each class being initialised when its
+     * first field is set. A class none of whose fields can be injected is not initialised by the injector.
+     * With an executor, only the loading is done by several workers.
+     */
+    DEFERRED
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+/**
+ * The phases of {@link Injector#startInjection(ClassLoader, String...)}, in execution order.
+ *
+ * @author Azn9
+ */
+public enum InjectionPhase {
+
+    /**
+     * Discovery of the classes to inject: classpath scan, cached index or compiled index.
+     */
+    SCAN,
+    /**
+     * Loading and creation of the classes annotated with {@link fr.ekalia.injector.annotation.Provides}.
+     */
+    PROVIDER_CREATION,
+    /**
+     * Loading and initialisation of the classes containing fields annotated with
+     * {@link fr.ekalia.injector.annotation.Inject}, and injection of these fields.
+     */
+    FIELD_INJECTION,
+    /**
+     * Call of the methods annotated with {@link fr.ekalia.injector.annotation.WarmUp} of the created classes.
+     * Only runs if one of them has such a method.
+     */
+    WARM_UP
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counts of an injection, to find what makes a startup slow.
+ * Durations of phases are wall-clock times, while the class loading duration is summed over all the classes and
+ * can exceed the phase duration when the injection runs in parallel.
+ *
+ * @author Azn9
+ */
+public final class InjectionReport {
+
+    private final Map<InjectionPhase, Duration> phaseDurations = Collections.synchronizedMap(new EnumMap<>(InjectionPhase.class));
+    private final Map<String, Duration> providerDurations = new ConcurrentHashMap<>();
+    private final Set<String> failedProviders = ConcurrentHashMap.newKeySet();
+    private final Map<String, Duration> warmUpDurations = new ConcurrentHashMap<>();
+    private final Set<String> failedWarmUps = ConcurrentHashMap.newKeySet();
+    private final Set<String> timedOutWarmUps = ConcurrentHashMap.newKeySet();
+    private final Set<String> finishedWarmUps = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger injectedClasses = new AtomicInteger();
+    private final AtomicInteger failedClasses = new AtomicInteger();
+    private final AtomicInteger injectedFields = new AtomicInteger();
+    private final AtomicInteger unresolvedFields = new AtomicInteger();
+    private final LongAdder classLoadingNanos = new LongAdder();
+
+    InjectionReport() {
+    }
+
+    void recordPhase(InjectionPhase phase, long nanos) {
+        this.phaseDurations.merge(phase, Duration.ofNanos(nanos), Duration::plus);
+    }
+
+    void recordProvider(String className, long nanos, boolean created) {
+        if (created) {
+            this.providerDurations.put(className, Duration.ofNanos(nanos));
+        } else {
+            this.failedProviders.add(className);
+        }
+    }
+
+    boolean recordWarmUp(String className, long nanos, boolean warmedUp) {
+        // The first outcome of a warm-up is final, so one finishing after its timeout is not reported twice
+        if (!this.finishedWarmUps.add(className)) {
+            return false;
+        }
+
+        if (warmedUp) {
+            this.warmUpDurations.put(className, Duration.ofNanos(nanos));
+        } else {
+            this.failedWarmUps.add(className);
+        }
+        return true;
+    }
+
+    boolean recordWarmUpTimeout(String className) {
+        if (!this.finishedWarmUps.add(className)) {
+            return false;
+        }
+
+        this.timedOutWarmUps.add(className);
+        return true;
+    }
+
+    void recordClass(long loadingNanos, boolean injected) {
+        this.classLoadingNanos.add(loadingNanos);
+        (injected ? this.injectedClasses : this.failedClasses).incrementAndGet();
+    }
+
+    void recordField(boolean injected) {
+        (injected ? this.injectedFields : this.unresolvedFields).incrementAndGet();
+    }
+
+    /**
+     * Get the duration of each phase.
+     *
+     * @return The durations, for the phases that ran.
+     */
+    public Map<InjectionPhase, Duration> getPhaseDurations() {
+        synchronized (this.phaseDurations) {
+            return Collections.unmodifiableMap(new EnumMap<>(this.phaseDurations));
+        }
+    }
+
+    /**
+     * Get the duration of a phase.
+     *
+     * @param phase The phase.
+     * @return The duration, zero if the phase did not run.
+     */
+    public Duration getPhaseDuration(InjectionPhase phase) {
+        return this.phaseDurations.getOrDefault(phase, Duration.ZERO);
+    }
+
+    /**
+     * Get the duration of the whole injection.
+     *
+     * @return The sum of the phase durations.
+     */
+    public Duration getTotalDuration() {
+        return this.getPhaseDurations().values().stream().reduce(Duration.ZERO, Duration::plus);
+    }
+
+    /**
+     * Get the time spent in the constructor of each provided class.
+     *
+     * @return The durations, keyed by class name, for the classes created successfully.
+     */
+    public Map<String, Duration> getProviderDurations() {
+        return Collections.unmodifiableMap(this.providerDurations);
+    }
+
+    /**
+     * Get the provided classes which could not be created.
+     *
+     * @return The class names.
+     */
+    public Set<String> getFailedProviders() {
+        return Collections.unmodifiableSet(this.failedProviders);
+    }
+
+    /**
+     * Get the time spent in the methods annotated with {@link fr.ekalia.injector.annotation.WarmUp} of each
+     * provided class.
+     *
+     * @return The durations, keyed by class name, for the classes warmed up successfully.
+     */
+    public Map<String, Duration> getWarmUpDurations() {
+        return Collections.unmodifiableMap(this.warmUpDurations);
+    }
+
+    /**
+     * Get the provided classes whose warm-up threw an exception.
+     *
+     * @return The class names.
+     */
+    public Set<String> getFailedWarmUps() {
+        return Collections.unmodifiableSet(this.failedWarmUps);
+    }
+
+    /**
+     * Get the provided classes whose warm-up did not finish within the warm-up budget.
+     *
+     * @return The class names.
+     */
+    public Set<String> getTimedOutWarmUps() {
+        return Collections.unmodifiableSet(this.timedOutWarmUps);
+    }
+
+    /**
+     * Get the time spent loading and initialising the classes containing injected fields.
+     *
+     * @return The duration, summed over all the classes.
+     */
+    public Duration getClassLoadingDuration() {
+        return Duration.ofNanos(this.classLoadingNanos.sum());
+    }
+
+    /**
+     * Get the number of classes whose fields were injected.
+     *
+     * @return The number of classes.
+     */
+    public int getInjectedClassCount() {
+        return this.injectedClasses.get();
+    }
+
+    /**
+     * Get the number of classes which could not be loaded or injected.
+     *
+     * @return The number of classes.
+     */
+    public int getFailedClassCount() {
+        return this.failedClasses.get();
+    }
+
+    /**
+     * Get the number of injected fields.
+     *
+     * @return The number of fields.
+     */
+    public int getInjectedFieldCount() {
+        return this.injectedFields.get();
+    }
+
+    /**
+     * Get the number of fields without any provider or which cannot be set.
+     *
+     * @return The number of fields.
+     */
+    public int getUnresolvedFieldCount() {
+        return this.unresolvedFields.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder().append(this.getTotalDuration().toMillis()).append(" ms (");
+
+        this.getPhaseDurations().forEach((phase, duration) -> builder.append(phase.name().toLowerCase()).append(' ').append(duration.toMillis()).append(" ms, "));
+
+        builder.append("class loading ").append(this.getClassLoadingDuration().toMillis()).append(" ms), ")
+                .append(this.providerDurations.size()).append(" providers created, ")
+                .append(this.failedProviders.size()).append(" failed, ")
+                .append(this.injectedFields.get()).append(" fields injected in ")
+                .append(this.injectedClasses.get()).append(" classes, ")
+                .append(this.unresolvedFields.get()).append(" unresolved");
+
+        if (this.phaseDurations.containsKey(InjectionPhase.WARM_UP)) {
+            builder.append(", ").append(this.warmUpDurations.size()).append(" providers warmed up, ")
+                    .append(this.failedWarmUps.size()).append(" failed, ")
+                    .append(this.timedOutWarmUps.size()).append(" timed out");
+        }
+
+        return builder.toString();
+    }
+}
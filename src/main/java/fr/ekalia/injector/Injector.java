@@ -17,25 +17,76 @@ package fr.ekalia.injector;
 
 import fr.ekalia.injector.annotation.Inject;
 import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.InjectScope;
 import fr.ekalia.injector.annotation.Provides;
+import fr.ekalia.injector.annotation.WarmUp;
+import fr.ekalia.injector.event.ClassInjectionEvent;
+import fr.ekalia.injector.event.InjectionPhaseEvent;
+import fr.ekalia.injector.event.ProviderCreationEvent;
 import fr.ekalia.injector.exception.UnprovidableClassException;
-import fr.ekalia.injector.util.Multimap2;
+import fr.ekalia.injector.index.ClassGraphIndexer;
+import fr.ekalia.injector.index.IndexCache;
+import fr.ekalia.injector.index.IndexSource;
+import fr.ekalia.injector.index.InjectionIndex;
+import fr.ekalia.injector.index.InjectionSnapshot;
+import fr.ekalia.injector.index.ScanProfile;
+import fr.ekalia.injector.index.SharedScanCache;
+import fr.ekalia.injector.plan.InjectionPlan;
+import fr.ekalia.injector.plan.InjectionSite;
+import fr.ekalia.injector.registry.InjectionPointIndex;
+import fr.ekalia.injector.registry.ProviderGraph;
+import fr.ekalia.injector.registry.ProviderRegistry;
+import fr.ekalia.injector.registry.ResolutionIndex;
+import fr.ekalia.injector.util.InstancePool;
+import fr.ekalia.injector.util.Lazy;
+import fr.ekalia.injector.util.ThreadScoped;
 import fr.ekalia.injector.util.Tuple2;
 import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ClassInfo;
-import io.github.classgraph.FieldInfo;
 import io.github.classgraph.ScanResult;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * This class is used to inject classes.
@@ -46,18 +97,77 @@ public class Injector {
 
     private static final Logger LOGGER = LogManager.getLogger(Injector.class);
     private static final String CANNOT_LOAD_PROVIDED_CLASS = "Cannot load provided class {}: {}";
-    private final Multimap2<Class<?>, InjectPriority, Object> classes = new Multimap2<>();
-    private final Set<ClassLoader> classLoaderSet = new HashSet<>();
+    private final ProviderRegistry registry = new ProviderRegistry();
+    private final InjectionPointIndex injectionPointIndex = new InjectionPointIndex();
+    private final Map<Class<?>, MembersInjector> membersInjectors = new ConcurrentHashMap<>();
+    private final Map<Class<?>, CompletableFuture<Object>> awaitedTypes = new ConcurrentHashMap<>();
+    private final AtomicInteger runningInjections = new AtomicInteger();
+    // Weak, so a child is collected once the application releases it
+    private final Set<Injector> children = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    // Weakly referenced, so an unloaded class loader can be collected
+    private final Set<ClassLoader> classLoaderSet = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
     private final ClassGraph classGraph;
+    private final Injector parent;
+    private IndexCache indexCache;
+    private IndexSource indexSource = IndexSource.CLASSPATH_SCAN;
+    private ScanProfile scanProfile = ScanProfile.minimal();
+    private ClassInitialization classInitialization = ClassInitialization.EAGER;
+    private boolean sharedScanCache;
+    private ExecutorService executor;
+    private Executor warmUpExecutor;
+    private Duration warmUpBudget;
+    private Path snapshotFile;
+    private volatile InjectionReport lastReport;
+    private String[] packageNames;
 
     /**
      * Creates a new injector.
      */
     public Injector() {
         this.classGraph = new ClassGraph().enableAllInfo();
+        this.parent = null;
 
-        this.classes.put(Injector.class, InjectPriority.HIGHEST, this);
-        this.classes.put(ClassGraph.class, InjectPriority.HIGHEST, this.classGraph);
+        this.registry.put(Injector.class, InjectPriority.HIGHEST, this);
+        this.registry.put(ClassGraph.class, InjectPriority.HIGHEST, this.classGraph);
+    }
+
+    private Injector(Injector parent) {
+        this.classGraph = parent.classGraph;
+        this.parent = parent;
+        this.indexCache = parent.indexCache;
+        this.indexSource = parent.indexSource;
+        this.scanProfile = parent.scanProfile;
+        this.classInitialization = parent.classInitialization;
+        this.sharedScanCache = parent.sharedScanCache;
+        this.executor = parent.executor;
+        this.warmUpExecutor = parent.warmUpExecutor;
+        this.warmUpBudget = parent.warmUpBudget;
+
+        // The other classes registered by the parent are resolved through it
+        this.registry.put(Injector.class, InjectPriority.HIGHEST, this);
+
+        // The fields resolved through the parent are injected again when its classes change
+        parent.children.add(this);
+    }
+
+    /**
+     * Creates a child injector, for example for a plugin or a tenant.
+     * <p>
+     * The child resolves the fields annotated with {@link Inject} and {@link #get(Class)} with its own classes first,
+     * then with the classes of this injector. Its injection only scans the classpath of its own class loaders, not
+     * of their parents, which are expected to be scanned by this injector. The classes it provides are not visible
+     * from this injector.
+     * <p>
+     * The fields of the child resolved with the classes of this injector are injected again when these classes change:
+     * when a class loader is added or unloaded, when a class is unregistered, or when a batch is committed. The child
+     * is only weakly referenced by this injector.
+     * <p>
+     * The child starts with the settings of this injector, which can then be changed independently.
+     *
+     * @return The child injector.
+     */
+    public Injector createChild() {
+        return new Injector(this);
     }
 
     /**
@@ -79,95 +189,1024 @@ public class Injector {
         if (Injector.LOGGER.isDebugEnabled()) {
             Injector.LOGGER.debug("Registering injection for {} with priority {}", instance.getClass().getName(), priority.name());
         }
-        this.classes.put(instance.getClass(), priority, instance);
+        this.register(instance.getClass(), priority, instance);
+    }
+
+    /**
+     * Registers a class to be injected, created by the given supplier on first use.
+     * The supplier is called at most once.
+     *
+     * @param type     The class to register.
+     * @param supplier The supplier creating the instance.
+     * @param priority The priority of the instance.
+     * @param <T>      The instance type.
+     */
+    public <T> void registerLazyInjection(@NotNull Class<T> type, @NotNull Supplier<? extends T> supplier, @NotNull InjectPriority priority) {
+        if (Injector.LOGGER.isDebugEnabled()) {
+            Injector.LOGGER.debug("Registering lazy injection for {} with priority {}", type.getName(), priority.name());
+        }
+        this.register(type, priority, new Lazy<>(supplier));
+    }
+
+    /**
+     * Registers a class to be injected, created by the given supplier as defined by its scope.
+     *
+     * @param type     The class to register.
+     * @param supplier The supplier creating the instances.
+     * @param priority The priority of the instances.
+     * @param scope    The scope of the instances, a pool has as many instances as available processors.
+     * @param <T>      The instance type.
+     * @see #registerPooledInjection(Class, Supplier, InjectPriority, int)
+     */
+    public <T> void registerInjection(@NotNull Class<T> type, @NotNull Supplier<? extends T> supplier, @NotNull InjectPriority priority, @NotNull InjectScope scope) {
+        if (Injector.LOGGER.isDebugEnabled()) {
+            Injector.LOGGER.debug("Registering {} scoped injection for {} with priority {}", scope.name(), type.getName(), priority.name());
+        }
+        this.register(type, priority, Injector.createScopedValue(supplier, scope, 0));
+    }
+
+    /**
+     * Registers a class to be injected as a pool of instances created by the given supplier.
+     *
+     * @param type     The class to register.
+     * @param supplier The supplier creating the instances.
+     * @param priority The priority of the pool.
+     * @param poolSize The maximum number of instances.
+     * @param <T>      The instance type.
+     */
+    public <T> void registerPooledInjection(@NotNull Class<T> type, @NotNull Supplier<? extends T> supplier, @NotNull InjectPriority priority, int poolSize) {
+        if (Injector.LOGGER.isDebugEnabled()) {
+            Injector.LOGGER.debug("Registering pooled injection for {} with priority {}", type.getName(), priority.name());
+        }
+        this.register(type, priority, new InstancePool<>(supplier, poolSize));
+    }
+
+    /**
+     * Add another {@link ClassLoader} to the set of class loaders used for injection.
+     *
+     * @param classLoader The class loader to use.
+     */
+    public void addClassLoader(@NotNull ClassLoader classLoader) {
+        this.classLoaderSet.add(classLoader);
+    }
+
+    /**
+     * Set the directory used to cache the scanned classes between runs.
+     * The cache is invalidated whenever an element of the scanned classpath changes.
+     *
+     * @param cacheDirectory The cache directory, or null to always scan the classpath.
+     */
+    public void setCacheDirectory(@Nullable Path cacheDirectory) {
+        this.indexCache = cacheDirectory == null ? null : new IndexCache(cacheDirectory);
+    }
+
+    /**
+     * Set whether the scanned classes are shared with the other injectors of the JVM through the
+     * {@link SharedScanCache}. An injector scanning a class loader with the same packages and settings as another one
+     * then reuses its result instead of scanning again.
+     * <p>
+     * Each class loader is scanned on its own, so several class loaders sharing a parent are slower to scan the first
+     * time. Default is false.
+     *
+     * @param sharedScanCache true to share the scanned classes.
+     */
+    public void setSharedScanCache(boolean sharedScanCache) {
+        this.sharedScanCache = sharedScanCache;
+    }
+
+    /**
+     * Set where the classes to inject are discovered. Default is {@link IndexSource#CLASSPATH_SCAN}.
+     *
+     * @param indexSource The source of the classes to inject.
+     */
+    public void setIndexSource(@NotNull IndexSource indexSource) {
+        this.indexSource = indexSource;
+    }
+
+    /**
+     * Set what is read from the classpath when it is scanned, and the packages and jars to scan or not.
+     * Default is {@link ScanProfile#minimal()}, which only reads the annotations needed by the injector.
+     *
+     * @param scanProfile The scan profile.
+     */
+    public void setScanProfile(@NotNull ScanProfile scanProfile) {
+        this.scanProfile = scanProfile;
+    }
+
+    /**
+     * Set when the classes containing fields annotated with {@link Inject} are initialised.
+     * Default is {@link ClassInitialization#EAGER}.
+     *
+     * @param classInitialization The class initialisation mode.
+     */
+    public void setClassInitialization(@NotNull ClassInitialization classInitialization) {
+        this.classInitialization = classInitialization;
+    }
+
+    /**
+     * Set the executor used to scan the classpath, create the classes annotated with {@link Provides} and inject
+     * the fields annotated with {@link Inject} in parallel. Each class containing injected fields is loaded and
+     * injected by a worker.
+     * <p>
+     * A provider is only created once all the providers that can be injected into its fields annotated with
+     * {@link Inject} are created, and these fields are injected before its constructor runs.
+     *
+     * @param executor The executor, for example {@code Executors.newVirtualThreadPerTaskExecutor()} or a
+     *                 {@link java.util.concurrent.ForkJoinPool}, or null to do everything on the calling thread.
+     */
+    public void setExecutor(@Nullable ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set the executor calling the methods annotated with {@link WarmUp}, each provided class being warmed up by a
+     * worker. Warm-ups usually wait for the network or the disk, so an executor with enough threads for all of
+     * them is better than the common {@link ForkJoinPool}.
+     *
+     * @param warmUpExecutor The executor, or null to warm up each provided class on its own daemon thread.
+     */
+    public void setWarmUpExecutor(@Nullable Executor warmUpExecutor) {
+        this.warmUpExecutor = warmUpExecutor;
+    }
+
+    /**
+     * Set the maximum time the injection waits for all the methods annotated with {@link WarmUp}.
+     * The warm-ups still running at the end of this time are interrupted, logged and listed by
+     * {@link InjectionReport#getTimedOutWarmUps()}, and the injection finishes without them.
+     *
+     * @param warmUpBudget The maximum time, or null to wait for all the warm-ups.
+     */
+    public void setWarmUpBudget(@Nullable Duration warmUpBudget) {
+        this.warmUpBudget = warmUpBudget;
+    }
+
+    /**
+     * Set the file holding the snapshot of the injection, to start the next injections without scanning.
+     * <p>
+     * When the file holds a snapshot taken with the same classpath, same packages, same settings and same classes
+     * registered manually, the injection restores the classes to create and the fields to inject from it, and
+     * injects each field with the class recorded for it instead of resolving it. Otherwise, or if one of its classes
+     * cannot be found anymore, the injection scans the classpath as usual. The file is then written with the
+     * resolved graph, recorded while the fields are injected: the classes annotated with {@link Provides} with their
+     * priority, and the class which provided each field annotated with {@link Inject}.
+     * <p>
+     * The snapshot is only used by {@link #startInjection(ClassLoader, String...)} and
+     * {@link #startInjectionAsync(ClassLoader, String...)}, and is not copied to the child injectors.
+     *
+     * @param snapshotFile The snapshot file, or null to always scan.
+     */
+    public void setSnapshotFile(@Nullable Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Injects all the fields annotated with {@link Inject} with the classes annotated with {@link Provides}.
+     *
+     * @param currentClassLoader The class loader to use.
+     * @param packageName        The packages name.
+     */
+    public void startInjection(ClassLoader currentClassLoader, String... packageName) {
+        this.runningInjections.incrementAndGet();
+
+        try {
+            this.inject(currentClassLoader, packageName);
+        } finally {
+            this.injectionFinished();
+        }
+    }
+
+    /**
+     * Starts the injection on the common {@link ForkJoinPool}. The executor set with
+     * {@link #setExecutor(ExecutorService)} is still used by the injection for its parallel work, but never runs
+     * the injection itself, which waits for this work.
+     *
+     * @param currentClassLoader The class loader to use.
+     * @param packageName        The packages name.
+     * @return A future completed with the report of the injection once all the fields are injected.
+     * @see #startInjectionAsync(Executor, ClassLoader, String...)
+     */
+    public CompletableFuture<InjectionReport> startInjectionAsync(@NotNull ClassLoader currentClassLoader, String... packageName) {
+        return this.startInjectionAsync(ForkJoinPool.commonPool(), currentClassLoader, packageName);
+    }
+
+    /**
+     * Starts the injection on an executor, so the application can start in the meantime.
+     * <p>
+     * Each provided class can be obtained with {@link #getAsync(Class)} as soon as it is created, and each field is
+     * set as soon as it is injected. The completion of the returned future guarantees that every injected field is
+     * visible to the threads waiting on it.
+     * <p>
+     * When the executor is also the one set with {@link #setExecutor(ExecutorService)}, it must be able to run
+     * other tasks while the injection waits for them.
+     *
+     * @param executor           The executor running the injection.
+     * @param currentClassLoader The class loader to use.
+     * @param packageName        The packages name.
+     * @return A future completed with the report of the injection once all the fields are injected.
+     */
+    public CompletableFuture<InjectionReport> startInjectionAsync(@NotNull Executor executor, @NotNull ClassLoader currentClassLoader, String... packageName) {
+        // Counted before returning, so getAsync waits for this injection even if it has not started yet
+        this.runningInjections.incrementAndGet();
+        String[] packages = packageName.clone();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return this.inject(currentClassLoader, packages);
+                } finally {
+                    this.injectionFinished();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            this.injectionFinished();
+            throw e;
+        }
+    }
+
+    @SuppressWarnings({
+            "java:S3011", // "Make sure that this accessibility update is safe here."
+            "java:S1181", // "Throwable exceptions should never be caught"
+            "java:S3776" // "Cognitive Complexity of methods should not be too high"
+    })
+    private InjectionReport inject(ClassLoader currentClassLoader, String... packageName) {
+        if (Injector.LOGGER.isInfoEnabled()) {
+            Injector.LOGGER.info("Starting injection for {}", () -> String.join(", ", packageName));
+        }
+
+        // Add current class loader if not already present
+        this.classLoaderSet.add(currentClassLoader);
+
+        // The class loaders are only strongly referenced during the injection
+        List<ClassLoader> classLoaders = List.copyOf(this.classLoaderSet);
+
+        this.packageNames = packageName.clone();
+
+        InjectionReport report = new InjectionReport();
+
+        // A child only scans what its parent did not
+        boolean ignoreParents = this.parent != null;
+        SnapshotSession snapshot;
+        InjectionIndex index;
+
+        if (this.snapshotFile == null) {
+            snapshot = null;
+            index = this.runPhase(report, InjectionPhase.SCAN, () -> this.scan(classLoaders, ignoreParents, packageName));
+        } else {
+            snapshot = this.runPhase(report, InjectionPhase.SCAN, () -> this.restoreOrScan(classLoaders, ignoreParents, packageName));
+            index = snapshot.getSnapshot().getIndex();
+        }
+
+        // Load @Provides classes
+        this.runPhase(report, InjectionPhase.PROVIDER_CREATION, () -> {
+            this.loadProvides(index, currentClassLoader, report);
+            return null;
+        });
+
+        // Get all classes containing fields annotated with @Inject
+        this.runPhase(report, InjectionPhase.FIELD_INJECTION, () -> {
+            if (snapshot != null) {
+                snapshot.indexProviders(this.registry.getEntries());
+            }
+
+            this.injectIntoClasses(index, classLoaders, report, snapshot);
+            return null;
+        });
+
+        if (snapshot != null) {
+            snapshot.storeIfChanged();
+        }
+
+        this.warmUp(report);
+
+        this.lastReport = report;
+        Injector.LOGGER.info("Injection finished in {}", report);
+
+        return report;
+    }
+
+    /**
+     * Adds a class loader to an injection already started, scanning only the classpath of this class loader.
+     * <p>
+     * Its classes annotated with {@link Provides} are registered and its fields annotated with {@link Inject} are
+     * injected, in the packages given to {@link #startInjection(ClassLoader, String...)}. The fields already
+     * injected are injected again if one of the new classes is now the provider with the highest priority for them.
+     *
+     * @param classLoader The class loader to add.
+     * @throws IllegalStateException If the injection was not started.
+     */
+    public void startIncrementalInjection(@NotNull ClassLoader classLoader) {
+        if (this.packageNames == null) {
+            throw new IllegalStateException("The injection must be started before adding a class loader");
+        }
+
+        if (!this.classLoaderSet.add(classLoader)) {
+            Injector.LOGGER.debug("Class loader {} is already injected", classLoader);
+            return;
+        }
+
+        this.runningInjections.incrementAndGet();
+
+        try {
+            this.injectClassLoader(classLoader);
+        } finally {
+            this.injectionFinished();
+        }
+    }
+
+    private void injectClassLoader(ClassLoader classLoader) {
+        Injector.LOGGER.info("Starting incremental injection for {}", classLoader);
+
+        List<ClassLoader> classLoaders = List.of(classLoader);
+
+        InjectionReport report = new InjectionReport();
+
+        // The parents are already scanned, only the classpath elements of this class loader are new
+        InjectionIndex index = this.runPhase(report, InjectionPhase.SCAN, () -> this.scan(classLoaders, true, this.packageNames));
+
+        this.runPhase(report, InjectionPhase.PROVIDER_CREATION, () -> {
+            Set<Class<?>> registeredClasses = new HashSet<>(this.registry.getEntries().keySet());
+            this.loadProvides(index, classLoader, report);
+
+            // Inject the new providers into the fields they now win
+            List<Class<?>> newClasses = this.registry.getEntries().keySet().stream()
+                    .filter(providedClass -> !registeredClasses.contains(providedClass))
+                    .toList();
+
+            for (Class<?> providedClass : newClasses) {
+                for (InjectionSite site : this.getFieldsWonBy(providedClass)) {
+                    Injector.LOGGER.debug("Injecting {} again with {}", site, providedClass.getName());
+                    this.injectIntoSite(site, true);
+                }
+            }
+
+            this.injectChildrenAgain(newClasses);
+            return null;
+        });
+
+        this.runPhase(report, InjectionPhase.FIELD_INJECTION, () -> {
+            this.injectIntoClasses(index, classLoaders, report, null);
+            return null;
+        });
+
+        this.warmUp(report);
+
+        this.lastReport = report;
+        Injector.LOGGER.info("Incremental injection finished in {}", report);
+    }
+
+    private void injectionFinished() {
+        if (this.runningInjections.decrementAndGet() == 0) {
+            // No running injection can provide the classes still awaited
+            for (Class<?> type : this.awaitedTypes.keySet()) {
+                CompletableFuture<Object> future = this.awaitedTypes.remove(type);
+
+                if (future != null) {
+                    future.completeExceptionally(new NoSuchElementException("No provider found for " + type.getName()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a class loader from the injection, so it can be collected once the application releases it.
+     * <p>
+     * The classes of this class loader are no longer provided, and the fields annotated with {@link Inject} they
+     * were injected into are injected again with the next provider with the highest priority, or set to null if
+     * there is none. The fields of its own classes are forgotten.
+     *
+     * @param classLoader The class loader to remove.
+     */
+    public void unloadClassLoader(@NotNull ClassLoader classLoader) {
+        if (!this.classLoaderSet.remove(classLoader)) {
+            Injector.LOGGER.debug("Class loader {} was not added, only its registered classes are removed", classLoader);
+        }
+
+        // Its fields are not injected again, they are collected with their classes
+        this.injectionPointIndex.removeIf(site -> site.getField().getDeclaringClass().getClassLoader() == classLoader);
+        this.membersInjectors.keySet().removeIf(type -> type.getClassLoader() == classLoader);
+        SharedScanCache.invalidate(classLoader);
+
+        List<Class<?>> providedClasses = this.registry.getEntries().keySet().stream()
+                .filter(type -> type.getClassLoader() == classLoader)
+                .toList();
+        this.removeProviders(providedClasses);
+
+        Injector.LOGGER.info("Unloaded class loader {}, {} provided classes removed", classLoader, providedClasses.size());
+    }
+
+    /**
+     * Removes a class registered with {@link #registerInjection(Object, InjectPriority)}, or provided with
+     * {@link Provides}. The fields annotated with {@link Inject} it was injected into are injected again with the
+     * next provider with the highest priority, or set to null if there is none.
+     *
+     * @param type The registered class.
+     * @return true if the class was registered.
+     */
+    public boolean unregisterInjection(@NotNull Class<?> type) {
+        if (this.registry.get(type) == null) {
+            return false;
+        }
+
+        this.removeProviders(List.of(type));
+        return true;
+    }
+
+    private void removeProviders(Collection<Class<?>> providedClasses) {
+        Set<InjectionSite> affectedSites = new LinkedHashSet<>();
+
+        for (Class<?> providedClass : providedClasses) {
+            affectedSites.addAll(this.getFieldsWonBy(providedClass));
+            Tuple2<InjectPriority, Object> removed = this.registry.remove(providedClass);
+
+            // The threads would otherwise keep their instance, and its class loader, until they end
+            if (removed != null && removed.getT2() instanceof ThreadScoped<?> threadScoped) {
+                threadScoped.close();
+            }
+        }
+
+        for (InjectionSite site : affectedSites) {
+            Object value = this.resolveValue(site.getField());
+
+            if (value == null) {
+                // The field must not keep the removed instance, nor its class loader
+                Injector.LOGGER.warn("No provider left for {}, the field is cleared", site);
+            }
+
+            try {
+                site.set(value);
+            } catch (RuntimeException e) {
+                Injector.LOGGER.error("Cannot inject into {} : {}", site, e.getMessage());
+            }
+        }
+
+        // The instances of a class rarely created would otherwise keep the removed classes until the next one
+        this.membersInjectors.values().forEach(MembersInjector::invalidate);
+
+        this.injectChildrenAgain(providedClasses);
+    }
+
+    private void injectChildrenAgain(Collection<Class<?>> providedClasses) {
+        List<Injector> currentChildren;
+        synchronized (this.children) {
+            currentChildren = List.copyOf(this.children);
+        }
+
+        for (Injector child : currentChildren) {
+            child.injectAgainFromParent(providedClasses);
+        }
+    }
+
+    private void injectAgainFromParent(Collection<Class<?>> providedClasses) {
+        Set<InjectionSite> sites = new LinkedHashSet<>(this.injectionPointIndex.getAssignableFields(Supplier.class));
+        sites.addAll(this.injectionPointIndex.getAssignableFields(InstancePool.class));
+        for (Class<?> providedClass : providedClasses) {
+            sites.addAll(this.injectionPointIndex.getAssignableFields(providedClass));
+        }
+
+        // The values resolved through the parent may have been removed
+        this.membersInjectors.values().forEach(MembersInjector::invalidate);
+
+        int injectedSites = 0;
+        for (InjectionSite site : sites) {
+            Class<?> resolvedType = Injector.getResolvedType(site.getField());
+
+            // The fields resolved by the classes of this injector do not depend on the parent
+            if (!site.isSettable() || this.registry.resolve(resolvedType) != null
+                    || providedClasses.stream().noneMatch(resolvedType::isAssignableFrom)) {
+                continue;
+            }
+
+            // Set even to null, so the field does not keep a class removed from the parent
+            Object value = this.resolveValue(site.getField());
+            try {
+                site.set(value);
+                injectedSites++;
+            } catch (RuntimeException e) {
+                Injector.LOGGER.error("Cannot inject into {} : {}", site, e.getMessage());
+            }
+        }
+
+        Injector.LOGGER.debug("Injected {} fields of child injector again", injectedSites);
+
+        this.injectChildrenAgain(providedClasses);
+    }
+
+    private List<InjectionSite> getFieldsWonBy(Class<?> providedClass) {
+        Tuple2<InjectPriority, Object> entry = this.registry.get(providedClass);
+        if (entry == null) {
+            return List.of();
+        }
+
+        Set<InjectionSite> sites = new LinkedHashSet<>(this.injectionPointIndex.getAssignableFields(providedClass));
+        sites.addAll(this.injectionPointIndex.getAssignableFields(Supplier.class));
+        sites.addAll(this.injectionPointIndex.getAssignableFields(InstancePool.class));
+
+        // The resolution index keeps the same entry, so the provider won the field if it is the resolved one
+        return sites.stream()
+                .filter(site -> site.isSettable() && this.registry.resolve(Injector.getResolvedType(site.getField())) == entry)
+                .toList();
+    }
+
+    private void injectIntoClasses(InjectionIndex index, Collection<ClassLoader> classLoaders, InjectionReport report, @Nullable SnapshotSession snapshot) {
+        if (this.classInitialization == ClassInitialization.DEFERRED) {
+            this.injectIntoClassesDeferred(index, classLoaders, report, snapshot);
+            return;
+        }
+
+        if (this.executor == null) {
+            index.getInjectedFields().keySet().forEach(className -> this.injectIntoClass(className, classLoaders, report, snapshot));
+        } else {
+            // Class loading and static initialisation are the slow part, so each class is handled by a worker
+            CompletableFuture.allOf(index.getInjectedFields().keySet().stream()
+                    .map(className -> CompletableFuture.runAsync(() -> this.injectIntoClass(className, classLoaders, report, snapshot), this.executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+    }
+
+    private void warmUp(InjectionReport report) {
+        // Keyed by identity, as an instance could override equals
+        Map<Object, List<Method>> warmUps = new IdentityHashMap<>();
+
+        for (Map.Entry<Class<?>, Tuple2<InjectPriority, Object>> entry : this.registry.getEntries().entrySet()) {
+            // Only the classes created by this injection, the lazy and scoped classes are created later
+            if (report.getProviderDurations().containsKey(entry.getKey().getName())) {
+                List<Method> methods = Injector.getWarmUpMethods(entry.getKey());
+
+                if (!methods.isEmpty()) {
+                    warmUps.put(entry.getValue().getT2(), methods);
+                }
+            }
+        }
+
+        if (warmUps.isEmpty()) {
+            return;
+        }
+
+        this.runPhase(report, InjectionPhase.WARM_UP, () -> {
+            this.runWarmUps(warmUps, report);
+            return null;
+        });
+    }
+
+    private void runWarmUps(Map<Object, List<Method>> warmUps, InjectionReport report) {
+        Map<Object, FutureTask<Void>> tasks = new IdentityHashMap<>();
+
+        warmUps.forEach((instance, methods) -> {
+            String className = instance.getClass().getName();
+            FutureTask<Void> task = new FutureTask<>(() -> this.warmUpInstance(instance, methods, report), null);
+            tasks.put(instance, task);
+
+            try {
+                if (this.warmUpExecutor == null) {
+                    Injector.startWarmUpThread(className, task);
+                } else {
+                    this.warmUpExecutor.execute(task);
+                }
+            } catch (RejectedExecutionException e) {
+                Injector.LOGGER.error("Cannot warm up {}: {}", className, e.getMessage());
+                report.recordWarmUp(className, 0, false);
+                task.cancel(false);
+            }
+        });
+
+        // The budget is shared by all the warm-ups, which all started at the same time
+        long deadline = this.warmUpBudget == null ? 0 : System.nanoTime() + this.warmUpBudget.toNanos();
+
+        for (Map.Entry<Object, FutureTask<Void>> entry : tasks.entrySet()) {
+            String className = entry.getKey().getClass().getName();
+            FutureTask<Void> task = entry.getValue();
+
+            try {
+                // The injection may run in a ForkJoinPool also running the warm-ups, which can then add a worker
+                ForkJoinPool.managedBlock(new WarmUpBlocker(task, this.warmUpBudget != null, deadline));
+            } catch (InterruptedException e) {
+                Injector.LOGGER.warn("Interrupted while waiting for the warm-ups, they are interrupted");
+                tasks.values().forEach(remainingTask -> remainingTask.cancel(true));
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // The warm-up may still finish before being interrupted, then it is not reported as timed out
+            if (!task.isDone() && report.recordWarmUpTimeout(className)) {
+                task.cancel(true);
+                Injector.LOGGER.warn("Warm-up of {} did not finish within {} ms, it was interrupted", className, this.warmUpBudget.toMillis());
+            }
+        }
+    }
+
+    private static void startWarmUpThread(String className, Runnable task) {
+        Thread thread = new Thread(task, "Warm-up of " + className);
+        // A warm-up still running after the budget must not keep the JVM alive
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @SuppressWarnings({
+            "java:S3011", // "Make sure that this accessibility update is safe here."
+            "java:S1181" // "Throwable exceptions should never be caught"
+    })
+    private void warmUpInstance(Object instance, List<Method> methods, InjectionReport report) {
+        String className = instance.getClass().getName();
+        long start = System.nanoTime();
+        boolean warmedUp = false;
+
+        try {
+            for (Method method : methods) {
+                method.setAccessible(true);
+                method.invoke(instance);
+            }
+            warmedUp = true;
+        } catch (InvocationTargetException ite) {
+            if (ite.getCause() instanceof InterruptedException) {
+                // Interrupted by the end of the warm-up budget
+                Injector.LOGGER.debug("Warm-up of {} interrupted", className);
+                Thread.currentThread().interrupt();
+            } else {
+                Injector.LOGGER.error("Cannot warm up {}: {}", className, ite.getCause().getMessage(), ite.getCause());
+            }
+        } catch (Throwable t) { //NOSONAR A failed warm-up must not fail the injection
+            Injector.LOGGER.error("Cannot warm up {}: {}", className, t.getMessage(), t);
+        } finally {
+            long nanos = System.nanoTime() - start;
+
+            if (report.recordWarmUp(className, nanos, warmedUp) && warmedUp) {
+                Injector.LOGGER.info("Warmed up {} in {} ms", className, TimeUnit.NANOSECONDS.toMillis(nanos));
+            }
+        }
+    }
+
+    private static List<Method> getWarmUpMethods(Class<?> aClass) {
+        List<Method> methods = new ArrayList<>();
+        Set<String> overridableNames = new HashSet<>();
+
+        for (Class<?> current = aClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            List<Method> declaredMethods = new ArrayList<>();
+
+            for (Method method : current.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(WarmUp.class)) {
+                    continue;
+                }
+
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0) {
+                    Injector.LOGGER.error("Cannot warm up {} with {}: the method must not be static and must not have any parameter", aClass.getName(), method.getName());
+                    continue;
+                }
+
+                // An overridden method is called once, by the subclass
+                if (Modifier.isPrivate(method.getModifiers()) || overridableNames.add(method.getName())) {
+                    declaredMethods.add(method);
+                }
+            }
+
+            // The methods of the superclasses are called first
+            methods.addAll(0, declaredMethods);
+        }
+
+        return methods;
+    }
+
+    private <T> T runPhase(InjectionReport report, InjectionPhase phase, Supplier<T> action) {
+        InjectionPhaseEvent event = new InjectionPhaseEvent(phase.name());
+        event.begin();
+        long start = System.nanoTime();
+
+        try {
+            return action.get();
+        } finally {
+            report.recordPhase(phase, System.nanoTime() - start);
+            event.commit();
+        }
+    }
+
+    private void injectIntoClassesDeferred(InjectionIndex index, Collection<ClassLoader> classLoaders, InjectionReport report, @Nullable SnapshotSession snapshot) {
+        Map<String, List<String>> injectedFields = index.getInjectedFields();
+        List<LoadedClass> loadedClasses;
+
+        if (this.executor == null) {
+            loadedClasses = injectedFields.entrySet().stream()
+                    .map(entry -> this.loadWithoutInitialising(entry.getKey(), entry.getValue(), classLoaders, report))
+                    .toList();
+        } else {
+            // Loading a class without initialising it has no side effect, so only the loading is done in parallel
+            List<CompletableFuture<LoadedClass>> futures = injectedFields.entrySet().stream()
+                    .map(entry -> CompletableFuture.supplyAsync(() -> this.loadWithoutInitialising(entry.getKey(), entry.getValue(), classLoaders, report), this.executor))
+                    .toList();
+
+            loadedClasses = futures.stream().map(CompletableFuture::join).toList();
+        }
+
+        // Each static initialiser runs when the first field of its class is set, in the order of the scan
+        for (LoadedClass loadedClass : loadedClasses) {
+            if (loadedClass != null) {
+                this.injectIntoLoadedClass(loadedClass, report, snapshot);
+            }
+        }
+    }
+
+    @SuppressWarnings("java:S1181") // "Throwable exceptions should never be caught"
+    private LoadedClass loadWithoutInitialising(String className, List<String> fieldNames, Collection<ClassLoader> classLoaders, InjectionReport report) {
+        long start = System.nanoTime();
+
+        try {
+            Class<?> clazz = Injector.loadClass(className, classLoaders, false);
+
+            if (clazz != null) {
+                // Only the fields found by the scan are read
+                return new LoadedClass(className, InjectionPlan.getStaticSites(clazz, fieldNames), System.nanoTime() - start);
+            }
+
+            Injector.LOGGER.warn("Cannot load class {}", className);
+        } catch (NoClassDefFoundError e) {
+            Injector.LOGGER.debug("Cannot load class {}", className);
+        } catch (Throwable e) {
+            Injector.LOGGER.error("Cannot inject into {} : {}", className, e.getMessage());
+        }
+
+        report.recordClass(System.nanoTime() - start, false);
+        return null;
+    }
+
+    @SuppressWarnings("java:S1181") // "Throwable exceptions should never be caught"
+    private void injectIntoLoadedClass(LoadedClass loadedClass, InjectionReport report, @Nullable SnapshotSession snapshot) {
+        ClassInjectionEvent event = new ClassInjectionEvent(loadedClass.className);
+        event.begin();
+        int injectedFields = 0;
+        boolean injected = false;
+
+        try {
+            for (InjectionSite site : loadedClass.sites) {
+                // Remember the field for the runtime injections
+                this.injectionPointIndex.add(site);
+
+                boolean fieldInjected = this.injectIntoSite(site, true, snapshot);
+                report.recordField(fieldInjected);
+                injectedFields += fieldInjected ? 1 : 0;
+            }
+
+            injected = true;
+        } catch (Throwable e) {
+            // Also thrown by the static initialiser, which runs when the first field is set
+            Injector.LOGGER.error("Cannot inject into {} : {}", loadedClass.className, e.getMessage());
+        } finally {
+            report.recordClass(loadedClass.loadingNanos, injected);
+            event.setInjectedFields(injectedFields);
+            event.commit();
+        }
+    }
+
+    @SuppressWarnings("java:S1181") // "Throwable exceptions should never be caught"
+    private void injectIntoClass(String className, Collection<ClassLoader> classLoaders, InjectionReport report, @Nullable SnapshotSession snapshot) {
+        ClassInjectionEvent event = new ClassInjectionEvent(className);
+        event.begin();
+        long start = System.nanoTime();
+        long loadingTime = 0;
+        int injectedFields = 0;
+        boolean injected = false;
+
+        try {
+            // Try to load the found class
+            Class<?> clazz = Injector.loadClass(className, classLoaders, true);
+            loadingTime = System.nanoTime() - start;
+
+            if (clazz == null) {
+                Injector.LOGGER.warn("Cannot load class {}", className);
+                return;
+            }
+
+            // Iterate over all annotated fields
+            for (InjectionSite site : InjectionPlan.of(clazz).getStaticSites()) {
+                // Remember the field for the runtime injections
+                this.injectionPointIndex.add(site);
+
+                boolean fieldInjected = this.injectIntoSite(site, true, snapshot);
+                report.recordField(fieldInjected);
+                injectedFields += fieldInjected ? 1 : 0;
+            }
+
+            injected = true;
+        } catch (NoClassDefFoundError e) {
+            Injector.LOGGER.debug("Cannot load class {}", className);
+        } catch (Throwable e) {
+            Injector.LOGGER.error("Cannot inject into {} : {}", className, e.getMessage());
+        } finally {
+            report.recordClass(loadingTime == 0 ? System.nanoTime() - start : loadingTime, injected);
+            event.setInjectedFields(injectedFields);
+            event.commit();
+        }
+    }
+
+    private SnapshotSession restoreOrScan(List<ClassLoader> classLoaders, boolean ignoreParents, String... packageName) {
+        ScanProfile profile = this.scanProfile;
+        String[] keys = Arrays.copyOf(packageName, packageName.length + 3);
+        keys[packageName.length] = this.indexSource.name();
+        keys[packageName.length + 1] = profile.toString();
+        // The bindings are replayed as they are, so they are only valid with the same classes registered manually
+        keys[packageName.length + 2] = this.registry.getEntries().entrySet().stream()
+                .map(entry -> entry.getKey().getName() + ':' + entry.getValue().getT1().name())
+                .sorted()
+                .collect(Collectors.joining(";"));
+
+        // Only list the classpath elements, which is much cheaper than scanning them
+        String fingerprint = IndexCache.fingerprint(profile.newClassGraph(classLoaders, ignoreParents, packageName).getClasspathFiles(), keys);
+
+        Optional<InjectionSnapshot> snapshot = InjectionSnapshot.load(this.snapshotFile, fingerprint);
+        if (snapshot.isPresent()) {
+            Optional<String> missingClass = snapshot.get().findMissingClass(classLoaders);
+
+            if (missingClass.isEmpty()) {
+                Injector.LOGGER.info("Restoring injection from snapshot {}", this.snapshotFile);
+                return new SnapshotSession(this.snapshotFile, snapshot.get(), true);
+            }
+
+            Injector.LOGGER.info("Ignoring snapshot {}, class {} cannot be found", this.snapshotFile, missingClass.get());
+        }
+
+        return new SnapshotSession(this.snapshotFile, new InjectionSnapshot(fingerprint, this.scan(classLoaders, ignoreParents, packageName)), false);
     }
 
-    /**
-     * Add another {@link ClassLoader} to the set of class loaders used for injection.
-     *
-     * @param classLoader The class loader to use.
-     */
-    public void addClassLoader(@NotNull ClassLoader classLoader) {
-        this.classLoaderSet.add(classLoader);
+    private InjectionIndex scan(List<ClassLoader> classLoaders, boolean ignoreParents, String... packageName) {
+        if (!this.sharedScanCache) {
+            return this.scan(this.scanProfile, classLoaders, ignoreParents, packageName);
+        }
+
+        ScanProfile profile = this.scanProfile;
+        String[] sortedPackages = packageName.clone();
+        Arrays.sort(sortedPackages);
+        String key = this.indexSource + "|" + ignoreParents + "|" + String.join(",", sortedPackages) + "|" + profile;
+
+        // Each class loader is cached on its own, so it can be collected independently of the others
+        InjectionIndex index = new InjectionIndex();
+        for (ClassLoader classLoader : classLoaders) {
+            index.merge(SharedScanCache.get(classLoader, key, () -> this.scan(profile, List.of(classLoader), ignoreParents, packageName)));
+        }
+
+        return index;
     }
 
-    /**
-     * Injects all the fields annotated with {@link Inject} with the classes annotated with {@link Provides}.
-     *
-     * @param currentClassLoader The class loader to use.
-     * @param packageName        The packages name.
-     */
-    @SuppressWarnings({
-            "java:S3011", // "Make sure that this accessibility update is safe here."
-            "java:S1181", // "Throwable exceptions should never be caught"
-            "java:S3776" // "Cognitive Complexity of methods should not be too high"
-    })
-    public void startInjection(ClassLoader currentClassLoader, String... packageName) {
-        if (Injector.LOGGER.isInfoEnabled()) {
-            Injector.LOGGER.info("Starting injection for {}", () -> String.join(", ", packageName));
+    private InjectionIndex scan(ScanProfile profile, List<ClassLoader> classLoaders, boolean ignoreParents, String... packageName) {
+        if (this.indexSource == IndexSource.COMPILED_INDEX) {
+            return profile.filter(Injector.readCompiledIndex(classLoaders, ignoreParents), packageName);
         }
 
-        // Load @Provides classes
-        this.loadProvides(currentClassLoader, packageName);
+        // A new class graph for each scan, so nothing is kept from the previous scans
+        ClassGraph classGraph = profile.newClassGraph(classLoaders, ignoreParents, packageName);
 
-        // Add current class loader if not already present
-        this.classLoaderSet.add(currentClassLoader);
+        if (this.indexCache == null) {
+            return this.scanClasspath(classGraph);
+        }
 
-        // Prevent multiple registrations of the same classloader
-        this.classGraph.overrideClassLoaders(this.classLoaderSet.toArray(new ClassLoader[0]));
+        // Only list the classpath elements, which is much cheaper than scanning them
+        String[] cacheKeys = Arrays.copyOf(packageName, packageName.length + 1);
+        cacheKeys[packageName.length] = profile.toString();
+        String fingerprint = IndexCache.fingerprint(classGraph.getClasspathFiles(), cacheKeys);
 
-        // Scan all classes
-        try (ScanResult scanResult = this.classGraph.scan()) {
-            // Get all classes containing fields annotated with @Inject
-            for (ClassInfo classInfo : scanResult.getClassesWithFieldAnnotation(Inject.class.getName())) {
-                try {
-                    // Try to load the found class
-                    Class<?> clazz = classInfo.loadClass(true);
+        Optional<InjectionIndex> cachedIndex = this.indexCache.load(fingerprint);
+        if (cachedIndex.isPresent()) {
+            Injector.LOGGER.debug("Using cached index {}", fingerprint);
+            return cachedIndex.get();
+        }
+
+        InjectionIndex index = this.scanClasspath(classGraph);
+        this.indexCache.store(fingerprint, index);
+
+        return index;
+    }
 
-                    if (clazz == null) {
-                        Injector.LOGGER.warn("Cannot load class {}", classInfo.getName());
+    private InjectionIndex scanClasspath(ClassGraph classGraph) {
+        // Scan all classes once, @Provides and @Inject are both resolved from the same result
+        try (ScanResult scanResult = this.executor == null ? classGraph.scan() : classGraph.scan(this.executor, Runtime.getRuntime().availableProcessors())) {
+            return ClassGraphIndexer.index(scanResult);
+        }
+    }
+
+    private static InjectionIndex readCompiledIndex(Collection<ClassLoader> classLoaders, boolean ignoreParents) {
+        InjectionIndex index = new InjectionIndex();
+
+        for (ClassLoader classLoader : classLoaders) {
+            try {
+                Enumeration<URL> resources = classLoader.getResources(InjectionIndex.RESOURCE);
+                Set<URL> parentResources = ignoreParents ? Injector.getParentResources(classLoader) : Set.of();
+
+                while (resources.hasMoreElements()) {
+                    URL resource = resources.nextElement();
+
+                    if (parentResources.contains(resource)) {
                         continue;
                     }
 
-                    // Iterate over all fields
-                    for (Field field : clazz.getDeclaredFields()) {
-                        this.injectIntoField(field);
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                        index.merge(InjectionIndex.read(reader));
+                    } catch (IOException e) {
+                        Injector.LOGGER.error("Cannot read index {}: {}", resource, e.getMessage());
                     }
-                } catch (NoClassDefFoundError e) {
-                    Injector.LOGGER.debug("Cannot load class {}", classInfo.getName());
-                } catch (Throwable e) {
-                    Injector.LOGGER.error("Cannot inject into {} : {}", classInfo.getName(), e.getMessage());
                 }
+            } catch (IOException e) {
+                Injector.LOGGER.error("Cannot list indexes of {}: {}", classLoader, e.getMessage());
+            }
+        }
+
+        return index;
+    }
+
+    private static Set<URL> getParentResources(ClassLoader classLoader) throws IOException {
+        Set<URL> resources = new HashSet<>();
+        if (classLoader.getParent() == null) {
+            return resources;
+        }
+
+        Enumeration<URL> parentResources = classLoader.getParent().getResources(InjectionIndex.RESOURCE);
+
+        while (parentResources.hasMoreElements()) {
+            resources.add(parentResources.nextElement());
+        }
+
+        return resources;
+    }
+
+    private static Class<?> loadClass(String className, Collection<ClassLoader> classLoaders, boolean initialize) {
+        for (ClassLoader classLoader : classLoaders) {
+            try {
+                return Class.forName(className, initialize, classLoader);
+            } catch (ClassNotFoundException e) {
+                // Try the next class loader
+            }
+        }
+
+        return null;
+    }
+
+    private void loadProvides(InjectionIndex index, ClassLoader currentClassLoader, InjectionReport report) {
+        Map<Class<?>, InjectPriority> providers = new LinkedHashMap<>();
+
+        // Load only classes annotated with @Provides
+        for (Map.Entry<String, InjectPriority> entry : index.getProviders().entrySet()) {
+            try {
+                // Providers are only taken from classes visible to the current class loader
+                providers.put(Class.forName(entry.getKey(), true, currentClassLoader), entry.getValue());
+            } catch (ClassNotFoundException | LinkageError e) {
+                Injector.LOGGER.debug("Cannot load provided class {} from the current class loader", entry.getKey());
             }
         }
+
+        // Both modes create the classes in dependency order, so a constructor sees the same fields either way
+        Map<Class<?>, List<InjectionSite>> injectedFields = new LinkedHashMap<>();
+        for (Class<?> aClass : providers.keySet()) {
+            injectedFields.put(aClass, InjectionPlan.of(aClass).getStaticSites());
+        }
+
+        ProviderGraph graph = ProviderGraph.build(injectedFields);
+        for (List<Class<?>> cycle : graph.getCycles()) {
+            Injector.LOGGER.warn("Dependency cycle between provided classes {}, they are created without waiting for each other",
+                    () -> cycle.stream().map(Class::getName).collect(Collectors.joining(", ")));
+        }
+
+        if (this.executor == null) {
+            Map<Class<?>, InjectPriority> priorityMap = new HashMap<>();
+
+            for (Class<?> aClass : graph.getOrder()) {
+                this.injectBeforeCreation(injectedFields.get(aClass));
+                this.loadProvidesClass(aClass, providers.get(aClass), priorityMap, report);
+            }
+        } else {
+            this.loadProvidesInParallel(providers, injectedFields, graph, report);
+        }
     }
 
-    private void loadProvides(ClassLoader currentClassLoader, String... packageName) {
-        Map<Class<?>, InjectPriority> priorityMap = new HashMap<>();
+    private void loadProvidesInParallel(Map<Class<?>, InjectPriority> providers, Map<Class<?>, List<InjectionSite>> injectedFields,
+                                        ProviderGraph graph, InjectionReport report) {
+        Map<Class<?>, InjectPriority> priorityMap = new ConcurrentHashMap<>();
+        Map<Class<?>, CompletableFuture<Void>> futures = new HashMap<>();
+
+        for (Class<?> aClass : graph.getOrder()) {
+            CompletableFuture<?>[] dependencies = graph.getDependencies(aClass).stream().map(futures::get).toArray(CompletableFuture[]::new);
+
+            futures.put(aClass, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                this.injectBeforeCreation(injectedFields.get(aClass));
+                this.loadProvidesClass(aClass, providers.get(aClass), priorityMap, report);
+            }, this.executor));
+        }
 
-        this.classGraph.overrideClassLoaders(currentClassLoader);
-        this.classGraph.acceptPackages(packageName);
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+    }
 
-        // Load all classes
-        try (ScanResult scanResult = this.classGraph.scan()) {
-            // Scan only classes annotated with @Provides
-            for (Class<?> aClass : scanResult.getClassesWithAnnotation(Provides.class.getName()).loadClasses(true)) {
-                this.loadProvidesClass(aClass, priorityMap);
+    @SuppressWarnings("java:S1181") // "Throwable exceptions should never be caught"
+    private void injectBeforeCreation(List<InjectionSite> sites) {
+        // Inject the dependencies first, so they are available in the constructor
+        for (InjectionSite site : sites) {
+            try {
+                this.injectIntoSite(site, false);
+            } catch (Throwable t) { //NOSONAR Any failure is reported again by the field injection
+                Injector.LOGGER.debug("Cannot inject into {} before creating it: {}", site, t.getMessage());
             }
         }
     }
 
-    private void loadProvidesClass(Class<?> aClass, Map<Class<?>, InjectPriority> priorityMap) {
+    private void loadProvidesClass(Class<?> aClass, InjectPriority priority, Map<Class<?>, InjectPriority> priorityMap, InjectionReport report) {
         if (aClass == null) {
             return;
         }
 
         try {
-            // Get the @Provides annotation
-            Provides provides = aClass.getAnnotation(Provides.class);
-
-            InjectPriority priority = provides.priority();
-
             // If there is already another class registered with a higher priority, skip this class
             if (priorityMap.containsKey(aClass) && priorityMap.get(aClass).ordinal() > priority.ordinal()) {
                 return;
@@ -176,9 +1215,30 @@ public class Injector {
             // Save the loaded class
             priorityMap.put(aClass, priority);
 
+            // Scoped classes are instantiated by each thread or by their pool
+            Provides provides = aClass.getAnnotation(Provides.class);
+            if (provides != null && provides.scope() != InjectScope.SINGLETON) {
+                this.register(aClass, priority, Injector.createScopedValue(() -> this.createLazyInstance(aClass, priority), provides.scope(), provides.poolSize()));
+
+                if (Injector.LOGGER.isDebugEnabled()) {
+                    Injector.LOGGER.debug("Added {} scoped provider for {} with priority {}", provides.scope().name(), aClass.getName(), priority.name());
+                }
+                return;
+            }
+
+            // Lazy classes are only instantiated on first use
+            if (provides != null && provides.lazy()) {
+                this.register(aClass, priority, new Lazy<>(() -> this.createLazyInstance(aClass, priority)));
+
+                if (Injector.LOGGER.isDebugEnabled()) {
+                    Injector.LOGGER.debug("Added lazy provider for {} with priority {}", aClass.getName(), priority.name());
+                }
+                return;
+            }
+
             // Try to instantiate the class
-            Object instance = aClass.getDeclaredConstructor().newInstance();
-            this.classes.put(aClass, priority, instance);
+            Object instance = this.createInstance(aClass, priority, report);
+            this.register(aClass, priority, instance);
 
             if (Injector.LOGGER.isDebugEnabled()) {
                 Injector.LOGGER.debug("Added provider for {} with priority {}", aClass.getName(), priority.name());
@@ -203,6 +1263,42 @@ public class Injector {
         }
     }
 
+    private Object createInstance(Class<?> aClass, InjectPriority priority, @Nullable InjectionReport report) throws ReflectiveOperationException {
+        ProviderCreationEvent event = new ProviderCreationEvent(aClass.getName(), priority.name());
+        event.begin();
+        long start = System.nanoTime();
+        boolean created = false;
+
+        try {
+            Object instance = aClass.getDeclaredConstructor().newInstance();
+            created = true;
+
+            return instance;
+        } finally {
+            if (report != null) {
+                report.recordProvider(aClass.getName(), System.nanoTime() - start, created);
+            }
+
+            event.setCreated(created);
+            event.commit();
+        }
+    }
+
+    private Object createLazyInstance(Class<?> aClass, InjectPriority priority) {
+        try {
+            // Lazy classes are created after the injection, so only the flight recorder sees them
+            return this.createInstance(aClass, priority, null);
+        } catch (InvocationTargetException ite) {
+            if (ite.getCause() instanceof UnprovidableClassException uce) {
+                throw uce;
+            }
+
+            throw new IllegalStateException("Cannot create provided class " + aClass.getName(), ite.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create provided class " + aClass.getName(), e);
+        }
+    }
+
     /**
      * Inject an instance at runtime.
      *
@@ -210,81 +1306,292 @@ public class Injector {
      * @param packageName The package name to scan.
      * @param classLoader The class loader to use.
      * @throws IllegalAccessException If the field is not accessible.
+     * @deprecated The fields are found from the last injection, use {@link #injectAtRuntime(Object)} instead.
      */
+    @Deprecated
     @SuppressWarnings({
-            "java:S3011", // "Make sure that this accessibility update is safe here."
-            "java:S1133" // "Remove the declaration of thrown exception"
+            "java:S1133", // "Remove the declaration of thrown exception"
+            "java:S1172" // "Remove this unused method parameter"
     })
     public void injectAtRuntime(Object instance, String packageName, ClassLoader classLoader) throws IllegalAccessException {
-        // Scan all classes
-        try (ScanResult scanResult = this.classGraph.scan()) {
-            // Get only classes containing fields annotated with @Inject
-            for (ClassInfo classInfo : scanResult.getClassesWithFieldAnnotation(Inject.class.getName())) {
-                // Iterate over all fields
-                for (FieldInfo fieldInfo : classInfo.getDeclaredFieldInfo()) {
-                    if (!fieldInfo.hasAnnotation(Inject.class.getName())) {
-                        continue;
-                    }
+        this.injectAtRuntime(instance);
+    }
 
-                    Field field = fieldInfo.loadClassAndGetField();
+    /**
+     * Inject an instance at runtime into every field annotated with {@link Inject} accepting it, among the fields
+     * found by {@link #startInjection(ClassLoader, String...)}. The classpath is not scanned again.
+     *
+     * @param instance The instance to inject.
+     */
+    public void injectAtRuntime(@NotNull Object instance) {
+        this.injectAtRuntime(List.of(instance));
+    }
 
-                    // Try to access field via reflection
-                    if (!field.trySetAccessible()) {
-                        continue;
-                    }
+    /**
+     * Inject several instances at runtime, each field being set once.
+     * If several instances can be assigned to the same field, the last one is injected.
+     *
+     * @param instances The instances to inject.
+     * @see #injectAtRuntime(Object)
+     */
+    public void injectAtRuntime(@NotNull Collection<?> instances) {
+        Map<InjectionSite, Object> values = new LinkedHashMap<>();
 
-                    if (field.getType().isAssignableFrom(instance.getClass())) {
-                        field.set(null, field.getType().cast(instance));
-                        continue;
-                    }
-                }
+        for (Object instance : instances) {
+            for (InjectionSite site : this.injectionPointIndex.getAssignableFields(instance.getClass())) {
+                values.put(site, instance);
+            }
+        }
+
+        values.forEach((site, instance) -> {
+            if (!site.isSettable()) {
+                return;
+            }
+
+            try {
+                site.set(instance);
+            } catch (RuntimeException e) {
+                Injector.LOGGER.error("Cannot inject into {} : {}", site, e.getMessage());
             }
+        });
+    }
+
+    /**
+     * Injects the instance fields annotated with {@link Inject} of an object, including the ones declared by its
+     * superclasses. A field without provider is left untouched.
+     * <p>
+     * The fields of a class are looked up on its first injection, and their values are only resolved again after a
+     * class is registered or removed, so injecting into objects created at a high rate costs a few field writes.
+     *
+     * @param instance The object to inject into.
+     */
+    public void injectMembers(@NotNull Object instance) {
+        MembersInjector membersInjector = this.membersInjectors.get(instance.getClass());
+
+        if (membersInjector == null) {
+            membersInjector = this.membersInjectors.computeIfAbsent(instance.getClass(), type -> new MembersInjector(type, this::resolveValue, this::getVersion));
         }
+
+        membersInjector.inject(instance);
     }
 
-    @SuppressWarnings("java:S3011") // "Make sure that this accessibility update is safe here."
-    private void injectIntoField(Field field) throws IllegalAccessException {
-        if (!field.isAnnotationPresent(Inject.class)) {
-            return;
+    /**
+     * Creates a batch of registrations, applied all at once by {@link RegistrationBatch#commit()}.
+     * Registering many classes in a batch resolves the types they can be assigned to once, and injects again only
+     * the fields whose provider changed.
+     *
+     * @return The batch.
+     */
+    public RegistrationBatch batch() {
+        return new RegistrationBatch(this);
+    }
+
+    void commit(Map<Class<?>, Tuple2<InjectPriority, Object>> registrations) {
+        Map<Class<?>, Tuple2<InjectPriority, Object>> applied = this.registry.putAll(registrations);
+
+        if (Injector.LOGGER.isDebugEnabled() && applied.size() < registrations.size()) {
+            registrations.keySet().stream()
+                    .filter(type -> !applied.containsKey(type))
+                    .forEach(type -> Injector.LOGGER.debug("Skipping registration of {}, already registered with a higher priority", type.getName()));
         }
 
-        // Try to access field via reflection
-        if (!field.trySetAccessible()) {
-            return;
+        // The fields already injected only change if one of the registered classes is now their provider
+        Set<InjectionSite> changedSites = new LinkedHashSet<>();
+        for (Class<?> type : applied.keySet()) {
+            changedSites.addAll(this.getFieldsWonBy(type));
         }
 
-        Object optimalValue = null;
-        InjectPriority optimalPriority = null;
+        for (InjectionSite site : changedSites) {
+            this.injectIntoSite(site, true);
+        }
 
-        // Iterate over all possible entries
-        for (Map.Entry<Class<?>, Tuple2<InjectPriority, Object>> entry : this.classes.entrySet()) {
-            Class<?> aClass = entry.getKey();
+        applied.keySet().forEach(this::completeAwaitedTypes);
+        this.injectChildrenAgain(applied.keySet());
 
-            // Wrong type
-            if (!field.getType().isAssignableFrom(aClass)) {
-                continue;
+        Injector.LOGGER.debug("Committed {} registrations, {} fields injected again", applied.size(), changedSites.size());
+    }
+
+    private void register(Class<?> type, InjectPriority priority, Object value) {
+        this.registry.put(type, priority, value);
+        this.completeAwaitedTypes(type);
+    }
+
+    private void completeAwaitedTypes(Class<?> type) {
+        if (this.awaitedTypes.isEmpty()) {
+            return;
+        }
+
+        for (Class<?> supertype : ResolutionIndex.getSupertypes(type)) {
+            CompletableFuture<Object> future = this.awaitedTypes.remove(supertype);
+
+            if (future != null) {
+                this.completeAwaited(future, supertype);
             }
+        }
+    }
+
+    private boolean completeAwaited(CompletableFuture<Object> future, Class<?> type) {
+        Tuple2<InjectPriority, Object> candidate = this.resolve(type);
+        if (candidate == null) {
+            return false;
+        }
 
-            Tuple2<InjectPriority, Object> tuple2 = entry.getValue();
-            InjectPriority priority = tuple2.getT1();
-            Object value = tuple2.getT2();
+        // The future is shared by all the waiting threads, so it cannot hold the instance of one thread or pool
+        if (candidate.getT2() instanceof ThreadScoped<?> || candidate.getT2() instanceof InstancePool<?>) {
+            future.completeExceptionally(new IllegalArgumentException(type.getName() + " is not a singleton, use getOrNull or getPool once it is provided"));
+            return true;
+        }
+
+        try {
+            future.complete(Injector.unwrap(candidate.getT2()));
+        } catch (RuntimeException e) {
+            // A lazy provider failed to be created
+            future.completeExceptionally(e);
+        }
+
+        return true;
+    }
+
+    private long getVersion() {
+        // Every version only grows, so the sum changes whenever one of the registries changes
+        return this.registry.getVersion() + (this.parent == null ? 0 : this.parent.getVersion());
+    }
 
-            // Find the optimal value to inject
-            if (optimalValue == null || priority.ordinal() > optimalPriority.ordinal()) {
-                optimalValue = value;
-                optimalPriority = priority;
+    private boolean injectIntoSite(InjectionSite site, boolean reportMissing) {
+        return this.injectIntoSite(site, reportMissing, null);
+    }
+
+    private boolean injectIntoSite(InjectionSite site, boolean reportMissing, @Nullable SnapshotSession snapshot) {
+        if (!site.isSettable()) {
+            if (reportMissing) {
+                Injector.LOGGER.error("Cannot inject into {} : {}", site, site.getError());
             }
+            return false;
         }
 
+        // Find the optimal value to inject
+        Object optimalValue = this.resolveValue(site.getField(), snapshot);
+
         if (optimalValue != null) {
-            field.set(null, field.getType().cast(optimalValue));
-        } else {
-            Injector.LOGGER.error("Cannot inject into {}#{} : No provider found", field.getDeclaringClass().getName(), field.getName());
+            site.set(optimalValue);
+            return true;
+        } else if (reportMissing) {
+            Injector.LOGGER.error("Cannot inject into {} : No provider found", site);
+        }
+
+        return false;
+    }
+
+    private Object resolveValue(Field field) {
+        return this.resolveValue(field, null);
+    }
+
+    private Object resolveValue(Field field, @Nullable SnapshotSession snapshot) {
+        // A restored snapshot gives the provider directly, only the fields it does not know are resolved
+        Tuple2<InjectPriority, Object> candidate = snapshot == null ? null : snapshot.replay(field);
+        Class<?> resolvedType = Injector.getResolvedType(field);
+
+        if (candidate == null) {
+            candidate = this.resolve(resolvedType);
+        }
+
+        if (snapshot != null) {
+            snapshot.record(field, candidate);
+        }
+
+        // A Supplier<T> field receives a supplier of the T provider, so a lazy provider is only created when it is called
+        if (resolvedType != field.getType()) {
+            if (candidate != null) {
+                return Injector.toSuppliedValue(field, candidate.getT2());
+            }
+
+            candidate = this.resolve(field.getType());
+        }
+
+        if (candidate == null) {
+            return null;
+        }
+
+        Object value = candidate.getT2();
+        if (value instanceof ThreadScoped<?> || value instanceof InstancePool<?>) {
+            // A single instance would be shared by every thread, or never released to its pool
+            Injector.LOGGER.warn("Cannot inject into {}#{} : the provider is scoped, use a Supplier or an InstancePool field", field.getDeclaringClass().getName(), field.getName());
+            return null;
+        }
+
+        return Injector.unwrap(value);
+    }
+
+    private static Object toSuppliedValue(Field field, Object value) {
+        if (field.getType() == InstancePool.class) {
+            return value instanceof InstancePool<?> ? value : null;
+        }
+
+        if (value instanceof InstancePool<?>) {
+            // A pooled instance must be released, which a Supplier cannot do
+            return null;
+        }
+
+        // Lazy and thread scoped values are already suppliers of the instance
+        return value instanceof Lazy<?> || value instanceof ThreadScoped<?> ? value : (Supplier<Object>) () -> value;
+    }
+
+    private Tuple2<InjectPriority, Object> resolve(Class<?> type) {
+        Tuple2<InjectPriority, Object> candidate = this.registry.resolve(type);
+
+        // The classes of a child hide the ones of its parents, whatever their priority
+        return candidate == null && this.parent != null ? this.parent.resolve(type) : candidate;
+    }
+
+    private static Class<?> getResolvedType(Field field) {
+        if ((field.getType() == Supplier.class || field.getType() == InstancePool.class)
+                && field.getGenericType() instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> suppliedType) {
+            return suppliedType;
+        }
+
+        return field.getType();
+    }
+
+    private static Object unwrap(Object value) {
+        if (value instanceof Lazy<?> lazy) {
+            return lazy.get();
         }
+
+        return value instanceof ThreadScoped<?> threadScoped ? threadScoped.get() : value;
+    }
+
+    static Object createScopedValue(Supplier<?> factory, InjectScope scope, int poolSize) {
+        return switch (scope) {
+            case SINGLETON -> new Lazy<>(factory);
+            case THREAD -> new ThreadScoped<>(factory);
+            case POOLED -> new InstancePool<>(factory, poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors());
+        };
+    }
+
+    /**
+     * Get the report of the last injection.
+     *
+     * @return The report of the last call to {@link #startInjection(ClassLoader, String...)}, or null if the
+     * injection was never started.
+     */
+    @Nullable
+    public InjectionReport getLastReport() {
+        return this.lastReport;
+    }
+
+    /**
+     * Get the parent of this injector.
+     *
+     * @return The injector which created this one with {@link #createChild()}, or null if this is a root injector.
+     */
+    @Nullable
+    public Injector getParent() {
+        return this.parent;
     }
 
     /**
-     * Get the class loaders.
+     * Get the class loaders. They are weakly referenced, use {@link #unloadClassLoader(ClassLoader)} to remove one.
      *
      * @return The class loaders.
      */
@@ -296,19 +1603,115 @@ public class Injector {
      * Get the {@link ClassGraph} instance.
      *
      * @return The {@link ClassGraph} instance.
+     * @deprecated Each scan uses a new {@link ClassGraph} configured from the {@link ScanProfile}, so changes to this
+     * instance have no effect on the injection. Use {@link #setScanProfile(ScanProfile)} instead.
      */
+    @Deprecated
+    @SuppressWarnings("java:S1133") // "Do not forget to remove this deprecated code someday"
     public ClassGraph getClassGraph() {
         return this.classGraph;
     }
 
     /**
-     * Get the injected object for the given class
+     * Get the injected object for the given class, resolved the same way as the fields annotated with {@link Inject}:
+     * among the registered classes assignable to the given class, the one with the highest priority. A child injector
+     * falls back to the classes of its parent.
      *
      * @param clazz The class type
      * @param <T>   The object type
      * @return An {@link Optional} that contains the injected object for the given class, if present
      */
     public <T> Optional<T> get(Class<T> clazz) {
-        return Optional.ofNullable(this.classes.get(clazz)).map(Tuple2::getT2).map(clazz::cast);
+        return Optional.ofNullable(this.getOrNull(clazz));
+    }
+
+    /**
+     * Get the injected object for the given class once it is provided, for example by an injection started with
+     * {@link #startInjectionAsync(ClassLoader, String...)}.
+     * <p>
+     * The future is completed with the first provided class assignable to the given class. A class with a higher
+     * priority provided later by the same injection is only returned by the next calls. If no injection is running,
+     * or if the running injections finish without providing the class, the future fails with a
+     * {@link NoSuchElementException}.
+     * <p>
+     * Only classes with the {@link InjectScope#SINGLETON} scope can be awaited: for a class with the
+     * {@link InjectScope#THREAD} or {@link InjectScope#POOLED} scope, the future fails with an
+     * {@link IllegalArgumentException}, and the instance is obtained with {@link #getOrNull(Class)} or
+     * {@link #getPool(Class)} once the class is provided.
+     *
+     * @param clazz The class type
+     * @param <T>   The object type
+     * @return A future completed with the injected object for the given class
+     */
+    public <T> CompletableFuture<T> getAsync(@NotNull Class<T> clazz) {
+        CompletableFuture<Object> provided = new CompletableFuture<>();
+        if (this.completeAwaited(provided, clazz)) {
+            return provided.thenApply(clazz::cast);
+        }
+
+        CompletableFuture<Object> future = this.awaitedTypes.computeIfAbsent(clazz, type -> new CompletableFuture<>());
+
+        // The class may have been provided, or the injections may have finished, before the future was registered
+        if (this.completeAwaited(future, clazz)) {
+            this.awaitedTypes.remove(clazz, future);
+        } else if (this.runningInjections.get() == 0) {
+            this.awaitedTypes.remove(clazz, future);
+            future.completeExceptionally(new NoSuchElementException("No provider found for " + clazz.getName()));
+        }
+
+        return future.thenApply(clazz::cast);
+    }
+
+    /**
+     * Get the injected object for the given class, like {@link #get(Class)} but without allocating.
+     * This is a single lookup, suited for hot paths.
+     * <p>
+     * A class with the {@link InjectScope#THREAD} scope returns the instance of the calling thread. A class with the
+     * {@link InjectScope#POOLED} scope is obtained with {@link #getPool(Class)} instead.
+     *
+     * @param clazz The class type
+     * @param <T>   The object type
+     * @return The injected object for the given class, or null if there is none
+     */
+    @Nullable
+    public <T> T getOrNull(@NotNull Class<T> clazz) {
+        Tuple2<InjectPriority, Object> candidate = this.resolve(clazz);
+
+        if (candidate == null || candidate.getT2() instanceof InstancePool<?>) {
+            return null;
+        }
+
+        return clazz.cast(Injector.unwrap(candidate.getT2()));
+    }
+
+    /**
+     * Get the pool of a class with the {@link InjectScope#POOLED} scope.
+     *
+     * @param clazz The class type
+     * @param <T>   The object type
+     * @return The pool of the given class, or null if the class is not provided or not pooled
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> InstancePool<T> getPool(@NotNull Class<T> clazz) {
+        Tuple2<InjectPriority, Object> candidate = this.resolve(clazz);
+
+        return candidate != null && candidate.getT2() instanceof InstancePool<?> pool ? (InstancePool<T>) pool : null;
+    }
+
+    /**
+     * A class loaded without being initialised, waiting for its fields to be injected.
+     */
+    private static final class LoadedClass {
+
+        private final String className;
+        private final List<InjectionSite> sites;
+        private final long loadingNanos;
+
+        private LoadedClass(String className, List<InjectionSite> sites, long loadingNanos) {
+            this.className = className;
+            this.sites = sites;
+            this.loadingNanos = loadingNanos;
+        }
     }
 }
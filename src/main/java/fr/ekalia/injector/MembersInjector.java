@@ -0,0 +1,111 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+import fr.ekalia.injector.plan.InjectionPlan;
+import fr.ekalia.injector.plan.InjectionSite;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Injects the instance fields annotated with {@link fr.ekalia.injector.annotation.Inject} of one class.
+ * <p>
+ * The values are resolved once and kept until the providers of the injector change, so injecting into a new
+ * instance only calls the setters.
+ *
+ * @author Azn9
+ */
+final class MembersInjector {
+
+    private static final Logger LOGGER = LogManager.getLogger(MembersInjector.class);
+
+    private final InjectionSite[] sites;
+    private final Function<Field, Object> resolver;
+    private final LongSupplier version;
+    private volatile Resolution resolution;
+
+    MembersInjector(Class<?> type, Function<Field, Object> resolver, LongSupplier version) {
+        List<InjectionSite> instanceSites = InjectionPlan.of(type).getInstanceSites();
+
+        for (InjectionSite site : instanceSites) {
+            if (!site.isSettable()) {
+                MembersInjector.LOGGER.error("Cannot inject into {} : {}", site, site.getError());
+            }
+        }
+
+        this.sites = instanceSites.stream().filter(InjectionSite::isSettable).toArray(InjectionSite[]::new);
+        this.resolver = resolver;
+        this.version = version;
+    }
+
+    void inject(Object instance) {
+        Object[] values = this.getValues();
+
+        for (int i = 0; i < this.sites.length; i++) {
+            if (values[i] != null) {
+                this.sites[i].set(instance, values[i]);
+            }
+        }
+    }
+
+    /**
+     * Forgets the resolved values, so removed providers are not kept alive until the next injection.
+     */
+    void invalidate() {
+        this.resolution = null;
+    }
+
+    private Object[] getValues() {
+        // Read before resolving, so a change during the resolution is seen by the next injection
+        long currentVersion = this.version.getAsLong();
+        Resolution currentResolution = this.resolution;
+
+        if (currentResolution != null && currentResolution.version == currentVersion) {
+            return currentResolution.values;
+        }
+
+        Object[] values = new Object[this.sites.length];
+        for (int i = 0; i < this.sites.length; i++) {
+            values[i] = this.resolver.apply(this.sites[i].getField());
+
+            if (values[i] == null) {
+                MembersInjector.LOGGER.error("Cannot inject into {} : No provider found", this.sites[i]);
+            }
+        }
+
+        this.resolution = new Resolution(currentVersion, values);
+        return values;
+    }
+
+    /**
+     * The values of the fields, resolved with a version of the providers.
+     */
+    private static final class Resolution {
+
+        private final long version;
+        private final Object[] values;
+
+        private Resolution(long version, Object[] values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.InjectScope;
+import fr.ekalia.injector.util.Tuple2;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registrations applied to an {@link Injector} all at once by {@link #commit()}.
+ * <p>
+ * When a class is registered several times, or is already registered in the injector, the registration with the
+ * highest priority is kept, the latest one on equal priorities. The types the classes can be assigned to are
+ * resolved again once for the whole batch, and only the fields whose provider changed are injected again.
+ * <p>
+ * A batch is not thread safe, and can be reused after its commit.
+ *
+ * @author Azn9
+ */
+public final class RegistrationBatch {
+
+    private final Injector injector;
+    private final Map<Class<?>, Tuple2<InjectPriority, Object>> registrations = new LinkedHashMap<>();
+
+    RegistrationBatch(Injector injector) {
+        this.injector = injector;
+    }
+
+    /**
+     * Registers an object to be injected, with the normal priority.
+     *
+     * @param instance The instance to register.
+     * @return This batch.
+     */
+    public RegistrationBatch register(@NotNull Object instance) {
+        return this.register(instance, InjectPriority.NORMAL);
+    }
+
+    /**
+     * Registers an object to be injected.
+     *
+     * @param instance The instance to register.
+     * @param priority The priority of the instance.
+     * @return This batch.
+     */
+    public RegistrationBatch register(@NotNull Object instance, @NotNull InjectPriority priority) {
+        return this.add(instance.getClass(), priority, instance);
+    }
+
+    /**
+     * Registers a class to be injected, created by the given supplier as defined by its scope.
+     *
+     * @param type     The class to register.
+     * @param supplier The supplier creating the instances.
+     * @param priority The priority of the instances.
+     * @param scope    The scope of the instances.
+     * @param <T>      The instance type.
+     * @return This batch.
+     * @see Injector#registerInjection(Class, Supplier, InjectPriority, InjectScope)
+     */
+    public <T> RegistrationBatch register(@NotNull Class<T> type, @NotNull Supplier<? extends T> supplier, @NotNull InjectPriority priority, @NotNull InjectScope scope) {
+        return this.add(type, priority, Injector.createScopedValue(supplier, scope, 0));
+    }
+
+    /**
+     * Applies the registrations to the injector, then empties this batch.
+     */
+    public void commit() {
+        if (this.registrations.isEmpty()) {
+            return;
+        }
+
+        this.injector.commit(this.registrations);
+        this.registrations.clear();
+    }
+
+    private RegistrationBatch add(Class<?> type, InjectPriority priority, Object value) {
+        this.registrations.merge(type, new Tuple2<>(priority, value), (current, added) -> added.getT1().ordinal() >= current.getT1().ordinal() ? added : current);
+        return this;
+    }
+}
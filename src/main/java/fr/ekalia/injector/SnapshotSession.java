@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.index.InjectionSnapshot;
+import fr.ekalia.injector.util.Tuple2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The snapshot of one injection: replays the bindings of the restored snapshot, if any, and records the bindings
+ * resolved by this injection, to write them once the fields are injected.
+ *
+ * @author Azn9
+ */
+final class SnapshotSession {
+
+    private static final Logger LOGGER = LogManager.getLogger(SnapshotSession.class);
+
+    private final Path file;
+    private final InjectionSnapshot restored;
+    private final InjectionSnapshot recorded;
+    private final Map<String, Tuple2<InjectPriority, Object>> entriesByName = new HashMap<>();
+    private final Map<Tuple2<InjectPriority, Object>, String> namesByEntry = new IdentityHashMap<>();
+    private volatile boolean changed;
+
+    SnapshotSession(Path file, InjectionSnapshot snapshot, boolean restored) {
+        this.file = file;
+        this.restored = restored ? snapshot : null;
+        this.recorded = new InjectionSnapshot(snapshot.getFingerprint(), snapshot.getIndex());
+        this.changed = !restored;
+    }
+
+    InjectionSnapshot getSnapshot() {
+        return this.restored != null ? this.restored : this.recorded;
+    }
+
+    /**
+     * Remembers the registered classes, once they are all created and before any field is injected.
+     *
+     * @param entries The entries of the registry.
+     */
+    void indexProviders(Map<Class<?>, Tuple2<InjectPriority, Object>> entries) {
+        entries.forEach((type, entry) -> {
+            this.entriesByName.put(type.getName(), entry);
+            this.namesByEntry.put(entry, type.getName());
+        });
+    }
+
+    /**
+     * Get the entry of the class which provided a field in the restored snapshot.
+     *
+     * @param field The injected field.
+     * @return The entry, or null if the field must be resolved.
+     */
+    @Nullable
+    Tuple2<InjectPriority, Object> replay(Field field) {
+        if (this.restored == null) {
+            return null;
+        }
+
+        String providerClassName = this.restored.getBinding(field.getDeclaringClass().getName(), field.getName());
+        return providerClassName == null ? null : this.entriesByName.get(providerClassName);
+    }
+
+    /**
+     * Records the class which provided a field.
+     *
+     * @param field The injected field.
+     * @param entry The entry injected into the field, or null if there is none.
+     */
+    void record(Field field, @Nullable Tuple2<InjectPriority, Object> entry) {
+        String className = field.getDeclaringClass().getName();
+        // The entries of a parent injector are not recorded, they are resolved again by the next injections
+        String providerClassName = entry == null ? null : this.namesByEntry.get(entry);
+
+        if (providerClassName != null) {
+            this.recorded.addBinding(className, field.getName(), providerClassName);
+        }
+
+        if (this.restored != null && !Objects.equals(providerClassName, this.restored.getBinding(className, field.getName()))) {
+            SnapshotSession.LOGGER.info("The provider of {}#{} changed since the snapshot", className, field.getName());
+            this.changed = true;
+        }
+    }
+
+    /**
+     * Writes the recorded bindings, unless the restored snapshot already holds them.
+     */
+    void storeIfChanged() {
+        if (this.changed) {
+            this.recorded.store(this.file);
+            SnapshotSession.LOGGER.debug("Snapshot of the injection written to {}", this.file);
+        }
+    }
+}
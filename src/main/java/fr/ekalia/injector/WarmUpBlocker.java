@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for a warm-up until it finishes or its deadline passes.
+ * <p>
+ * Used with {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}, so a worker of a {@link ForkJoinPool}
+ * waiting for a warm-up queued in the same pool lets the pool start another worker instead of waiting forever.
+ *
+ * @author Azn9
+ */
+final class WarmUpBlocker implements ForkJoinPool.ManagedBlocker {
+
+    private final FutureTask<Void> task;
+    private final boolean bounded;
+    private final long deadline;
+
+    WarmUpBlocker(FutureTask<Void> task, boolean bounded, long deadline) {
+        this.task = task;
+        this.bounded = bounded;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+        try {
+            if (this.bounded) {
+                this.task.get(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } else {
+                this.task.get();
+            }
+        } catch (ExecutionException | CancellationException | TimeoutException e) {
+            // The failures are logged by the warm-up itself, and the caller checks whether the task is done
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+        return this.task.isDone() || (this.bounded && System.nanoTime() - this.deadline >= 0);
+    }
+}
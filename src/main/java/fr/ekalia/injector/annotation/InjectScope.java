@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.annotation;
+
+/**
+ * How many instances of a provided class are created, and who gets which one.
+ *
+ * @author Azn9
+ */
+public enum InjectScope {
+
+    /**
+     * A single instance, shared by every field and every caller.
+     */
+    SINGLETON,
+    /**
+     * One instance per thread, created on first use by each thread. The instances are handed out through
+     * {@link java.util.function.Supplier} fields annotated with {@link Inject}, or by {@code Injector#get} which
+     * returns the instance of the calling thread.
+     */
+    THREAD,
+    /**
+     * A bounded pool of instances, borrowed and released by their users. The pool is handed out through
+     * {@code InstancePool} fields annotated with {@link Inject}, or by {@code Injector#getPool}.
+     */
+    POOLED
+
+}
@@ -35,4 +35,30 @@ public @interface Provides {
      */
     InjectPriority priority() default InjectPriority.NORMAL;
 
+    /**
+     * Whether the class is created on first use instead of when the injection starts.
+     * A lazy class is created by the first call to {@code Injector#get} or the first injection into a field of its
+     * type, or on the first call to a {@link java.util.function.Supplier} field annotated with {@link Inject}.
+     * Default is false.
+     *
+     * @return true if the class is created on first use
+     */
+    boolean lazy() default false;
+
+    /**
+     * How many instances of the class are created, see {@link InjectScope}.
+     * Default is a single instance.
+     *
+     * @return The scope
+     */
+    InjectScope scope() default InjectScope.SINGLETON;
+
+    /**
+     * The maximum number of instances of a class with the {@link InjectScope#POOLED} scope.
+     * Default is 0, which means the number of available processors.
+     *
+     * @return The size of the pool
+     */
+    int poolSize() default 0;
+
 }
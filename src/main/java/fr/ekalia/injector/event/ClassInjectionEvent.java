@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event covering the loading, initialisation and injection of a class containing fields
+ * annotated with {@link fr.ekalia.injector.annotation.Inject}.
+ *
+ * @author Azn9
+ */
+@Name("fr.ekalia.injector.ClassInjection")
+@Label("Class Injection")
+@Category("Ekalia Injector")
+@Description("Loading, initialisation and injection of a class containing fields annotated with @Inject")
+public final class ClassInjectionEvent extends Event {
+
+    @Label("Injected Class")
+    private final String injectedClass;
+    @Label("Injected Fields")
+    private int injectedFields;
+
+    /**
+     * Creates the event of an injected class.
+     *
+     * @param injectedClass The name of the injected class.
+     */
+    public ClassInjectionEvent(String injectedClass) {
+        this.injectedClass = injectedClass;
+    }
+
+    /**
+     * Set the number of injected fields.
+     *
+     * @param injectedFields The number of fields injected into the class.
+     */
+    public void setInjectedFields(int injectedFields) {
+        this.injectedFields = injectedFields;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event covering a phase of the injection.
+ *
+ * @author Azn9
+ */
+@Name("fr.ekalia.injector.InjectionPhase")
+@Label("Injection Phase")
+@Category("Ekalia Injector")
+@Description("A phase of the injection: scan, provider creation or field injection")
+public final class InjectionPhaseEvent extends Event {
+
+    @Label("Phase")
+    private final String phase;
+
+    /**
+     * Creates the event of a phase.
+     *
+     * @param phase The name of the phase.
+     */
+    public InjectionPhaseEvent(String phase) {
+        this.phase = phase;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event covering the constructor of a class annotated with
+ * {@link fr.ekalia.injector.annotation.Provides}.
+ *
+ * @author Azn9
+ */
+@Name("fr.ekalia.injector.ProviderCreation")
+@Label("Provider Creation")
+@Category("Ekalia Injector")
+@Description("Creation of a class annotated with @Provides")
+public final class ProviderCreationEvent extends Event {
+
+    @Label("Provided Class")
+    private final String providedClass;
+    @Label("Priority")
+    private final String priority;
+    @Label("Created")
+    private boolean created;
+
+    /**
+     * Creates the event of a provided class.
+     *
+     * @param providedClass The name of the provided class.
+     * @param priority      The priority of the provided class.
+     */
+    public ProviderCreationEvent(String providedClass, String priority) {
+        this.providedClass = providedClass;
+        this.priority = priority;
+    }
+
+    /**
+     * Set whether the class was created.
+     *
+     * @param created true if the constructor succeeded, false otherwise
+     */
+    public void setCreated(boolean created) {
+        this.created = created;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import fr.ekalia.injector.annotation.Inject;
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.Provides;
+import io.github.classgraph.AnnotationEnumValue;
+import io.github.classgraph.AnnotationInfo;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.FieldInfo;
+import io.github.classgraph.ScanResult;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builds an {@link InjectionIndex} from a {@link ScanResult}.
+ *
+ * @author Azn9
+ */
+public final class ClassGraphIndexer {
+
+    private ClassGraphIndexer() {
+    }
+
+    /**
+     * Collects the classes annotated with {@link Provides} and the fields annotated with {@link Inject}.
+     *
+     * @param scanResult The scan result to read.
+     * @return The index.
+     */
+    public static InjectionIndex index(@NotNull ScanResult scanResult) {
+        InjectionIndex index = new InjectionIndex();
+
+        for (ClassInfo classInfo : scanResult.getClassesWithAnnotation(Provides.class.getName())) {
+            index.addProvider(classInfo.getName(), ClassGraphIndexer.getPriority(classInfo));
+        }
+
+        for (ClassInfo classInfo : scanResult.getClassesWithFieldAnnotation(Inject.class.getName())) {
+            for (FieldInfo fieldInfo : classInfo.getDeclaredFieldInfo()) {
+                if (fieldInfo.hasAnnotation(Inject.class.getName())) {
+                    index.addInjectedField(classInfo.getName(), fieldInfo.getName());
+                }
+            }
+        }
+
+        return index;
+    }
+
+    private static InjectPriority getPriority(ClassInfo classInfo) {
+        AnnotationInfo annotationInfo = classInfo.getAnnotationInfo(Provides.class.getName());
+        Object value = annotationInfo == null ? null : annotationInfo.getParameterValues().getValue("priority");
+
+        if (value instanceof AnnotationEnumValue enumValue) {
+            return InjectPriority.valueOf(enumValue.getValueName());
+        }
+
+        return InjectPriority.NORMAL;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of {@link InjectionIndex}, keyed by a fingerprint of the scanned classpath.
+ * <p>
+ * The fingerprint covers the path, size and modification time of every classpath element (and of every file of a
+ * directory element) along with the scanned packages, so any change to the classpath invalidates the cached index.
+ *
+ * @author Azn9
+ */
+public class IndexCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(IndexCache.class);
+    private static final String EXTENSION = ".idx";
+
+    private final Path directory;
+
+    /**
+     * Creates a new index cache.
+     *
+     * @param directory The directory holding the cached indexes.
+     */
+    public IndexCache(@NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Computes the fingerprint of a classpath.
+     *
+     * @param classpathElements The classpath elements to scan.
+     * @param packageName       The packages name.
+     * @return The fingerprint.
+     */
+    public static String fingerprint(@NotNull List<File> classpathElements, String... packageName) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        String[] packages = packageName.clone();
+        Arrays.sort(packages);
+        IndexCache.update(digest, String.join(",", packages));
+
+        for (File element : classpathElements) {
+            Path path = element.toPath().toAbsolutePath();
+            IndexCache.update(digest, path.toString());
+
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.filter(Files::isRegularFile).sorted().forEach(file -> IndexCache.update(digest, file));
+                } catch (IOException | UncheckedIOException e) {
+                    // Unreadable directories only make the fingerprint different, never wrong
+                    IndexCache.update(digest, "!" + e.getMessage());
+                }
+            } else {
+                IndexCache.update(digest, path);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            IndexCache.update(digest, file + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            IndexCache.update(digest, file + ":missing");
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    /**
+     * Loads the index cached for the given fingerprint.
+     *
+     * @param fingerprint The classpath fingerprint.
+     * @return The cached index, or an empty {@link Optional} if there is none or it cannot be read.
+     */
+    public Optional<InjectionIndex> load(@NotNull String fingerprint) {
+        Path file = this.directory.resolve(fingerprint + IndexCache.EXTENSION);
+
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return Optional.of(InjectionIndex.read(reader));
+        } catch (IOException e) {
+            IndexCache.LOGGER.warn("Ignoring unreadable index cache {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the index for the given fingerprint.
+     *
+     * @param fingerprint The classpath fingerprint.
+     * @param index       The index to store.
+     */
+    public void store(@NotNull String fingerprint, @NotNull InjectionIndex index) {
+        Path temporary = null;
+
+        try {
+            Files.createDirectories(this.directory);
+
+            // Write to a temporary file first so concurrent JVMs never read a partial index
+            temporary = Files.createTempFile(this.directory, fingerprint, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                index.write(writer);
+            }
+
+            Files.move(temporary, this.directory.resolve(fingerprint + IndexCache.EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            IndexCache.LOGGER.warn("Cannot write index cache in {}: {}", this.directory, e.getMessage());
+
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // Nothing more can be done, the file is only garbage in the cache directory
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the cache directory.
+     *
+     * @return The cache directory.
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+}
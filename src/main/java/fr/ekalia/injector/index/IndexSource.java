@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+/**
+ * Where the injector discovers the classes annotated with {@link fr.ekalia.injector.annotation.Provides} and the
+ * fields annotated with {@link fr.ekalia.injector.annotation.Inject}.
+ *
+ * @author Azn9
+ */
+public enum IndexSource {
+
+    /**
+     * Scan the classpath of the class loaders with ClassGraph.
+     */
+    CLASSPATH_SCAN,
+    /**
+     * Read the {@link InjectionIndex#RESOURCE} files generated at compile time by the
+     * {@code ekalia-injector-processor} annotation processor, without scanning the classpath.
+     */
+    COMPILED_INDEX
+
+}
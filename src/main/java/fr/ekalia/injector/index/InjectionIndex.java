@@ -0,0 +1,223 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import fr.ekalia.injector.annotation.Inject;
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.Provides;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The classes discovered for injection: the classes annotated with {@link Provides} with their priority, and the
+ * fields annotated with {@link Inject} grouped by declaring class.
+ * <p>
+ * Only class and field names are stored, so an index never keeps a class or a class loader alive.
+ *
+ * @author Azn9
+ */
+public class InjectionIndex {
+
+    /**
+     * The resource holding the index generated at compile time.
+     */
+    public static final String RESOURCE = "META-INF/ekalia-injector/injection.index";
+
+    private static final String HEADER = "# ekalia-injector index v1";
+    private static final String PROVIDER = "P";
+    private static final String INJECTED_FIELD = "I";
+
+    private final Map<String, InjectPriority> providers = new LinkedHashMap<>();
+    private final Map<String, List<String>> injectedFields = new LinkedHashMap<>();
+
+    /**
+     * Adds a class annotated with {@link Provides}.
+     *
+     * @param className The name of the class.
+     * @param priority  The priority of the class.
+     */
+    public void addProvider(@NotNull String className, @NotNull InjectPriority priority) {
+        this.providers.put(className, priority);
+    }
+
+    /**
+     * Adds a field annotated with {@link Inject}.
+     *
+     * @param className The name of the class declaring the field.
+     * @param fieldName The name of the field.
+     */
+    public void addInjectedField(@NotNull String className, @NotNull String fieldName) {
+        List<String> fields = this.injectedFields.computeIfAbsent(className, k -> new ArrayList<>());
+
+        if (!fields.contains(fieldName)) {
+            fields.add(fieldName);
+        }
+    }
+
+    /**
+     * Adds all the entries of another index to this one.
+     *
+     * @param other The index to merge.
+     */
+    public void merge(@NotNull InjectionIndex other) {
+        other.providers.forEach(this::addProvider);
+        other.injectedFields.forEach((className, fields) -> fields.forEach(fieldName -> this.addInjectedField(className, fieldName)));
+    }
+
+    /**
+     * Creates a copy of this index containing only the classes of the given packages and their sub-packages.
+     *
+     * @param packageName The packages name, no package means every class.
+     * @return The filtered index.
+     */
+    public InjectionIndex filter(String... packageName) {
+        if (packageName.length == 0) {
+            return this;
+        }
+
+        return this.filter(className -> InjectionIndex.isInPackages(className, packageName));
+    }
+
+    /**
+     * Creates a copy of this index without the classes of the given packages and their sub-packages.
+     *
+     * @param packageName The packages name, no package means no class is removed.
+     * @return The filtered index.
+     */
+    public InjectionIndex reject(String... packageName) {
+        if (packageName.length == 0) {
+            return this;
+        }
+
+        return this.filter(className -> !InjectionIndex.isInPackages(className, packageName));
+    }
+
+    private InjectionIndex filter(Predicate<String> classFilter) {
+        InjectionIndex index = new InjectionIndex();
+
+        this.providers.forEach((className, priority) -> {
+            if (classFilter.test(className)) {
+                index.addProvider(className, priority);
+            }
+        });
+        this.injectedFields.forEach((className, fields) -> {
+            if (classFilter.test(className)) {
+                fields.forEach(fieldName -> index.addInjectedField(className, fieldName));
+            }
+        });
+
+        return index;
+    }
+
+    private static boolean isInPackages(String className, String... packageName) {
+        for (String name : packageName) {
+            if (name.isEmpty() || className.startsWith(name + '.')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the classes annotated with {@link Provides}.
+     *
+     * @return The class names mapped to their priority.
+     */
+    public Map<String, InjectPriority> getProviders() {
+        return Collections.unmodifiableMap(this.providers);
+    }
+
+    /**
+     * Get the fields annotated with {@link Inject}.
+     *
+     * @return The field names grouped by the name of their declaring class.
+     */
+    public Map<String, List<String>> getInjectedFields() {
+        return Collections.unmodifiableMap(this.injectedFields);
+    }
+
+    /**
+     * Writes the index in its text format.
+     *
+     * @param writer The writer to use.
+     * @throws IOException If the index cannot be written.
+     */
+    public void write(@NotNull Writer writer) throws IOException {
+        writer.write(InjectionIndex.HEADER);
+        writer.write('\n');
+
+        for (Map.Entry<String, InjectPriority> entry : this.providers.entrySet()) {
+            writer.write(InjectionIndex.PROVIDER + ' ' + entry.getValue().name() + ' ' + entry.getKey() + '\n');
+        }
+
+        for (Map.Entry<String, List<String>> entry : this.injectedFields.entrySet()) {
+            for (String fieldName : entry.getValue()) {
+                writer.write(InjectionIndex.INJECTED_FIELD + ' ' + entry.getKey() + ' ' + fieldName + '\n');
+            }
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write(Writer)}.
+     *
+     * @param reader The reader to use.
+     * @return The index.
+     * @throws IOException If the index cannot be read or is malformed.
+     */
+    public static InjectionIndex read(@NotNull BufferedReader reader) throws IOException {
+        InjectionIndex index = new InjectionIndex();
+
+        if (!InjectionIndex.HEADER.equals(reader.readLine())) {
+            throw new IOException("Unknown index format");
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            String[] parts = line.split(" ");
+            if (parts.length != 3) {
+                throw new IOException("Malformed index line: " + line);
+            }
+
+            switch (parts[0]) {
+                case InjectionIndex.PROVIDER -> {
+                    try {
+                        index.addProvider(parts[2], InjectPriority.valueOf(parts[1]));
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Unknown priority: " + parts[1], e);
+                    }
+                }
+                case InjectionIndex.INJECTED_FIELD -> index.addInjectedField(parts[1], parts[2]);
+                default -> throw new IOException("Malformed index line: " + line);
+            }
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The resolved injection graph of a previous run: the {@link InjectionIndex} it used, and the class which provided
+ * each injected field.
+ * <p>
+ * A snapshot is only valid for the classpath fingerprint it was taken with, see
+ * {@link IndexCache#fingerprint(List, String...)}. Its binary format stores every name once, and refers to it by
+ * its position afterwards.
+ *
+ * @author Azn9
+ */
+public final class InjectionSnapshot {
+
+    private static final Logger LOGGER = LogManager.getLogger(InjectionSnapshot.class);
+    private static final int MAGIC = 0x454B4953;
+    private static final int VERSION = 1;
+    private static final int NO_PROVIDER = -1;
+
+    private final String fingerprint;
+    private final InjectionIndex index;
+    private final Map<String, Map<String, String>> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a snapshot without any binding.
+     *
+     * @param fingerprint The classpath fingerprint.
+     * @param index       The index used by the injection.
+     */
+    public InjectionSnapshot(@NotNull String fingerprint, @NotNull InjectionIndex index) {
+        this.fingerprint = fingerprint;
+        this.index = index;
+    }
+
+    /**
+     * Records the class which provided a field.
+     *
+     * @param className         The name of the class declaring the field.
+     * @param fieldName         The name of the field.
+     * @param providerClassName The name of the class which provided the field.
+     */
+    public void addBinding(@NotNull String className, @NotNull String fieldName, @NotNull String providerClassName) {
+        this.bindings.computeIfAbsent(className, k -> new ConcurrentHashMap<>()).put(fieldName, providerClassName);
+    }
+
+    /**
+     * Get the class which provided a field.
+     *
+     * @param className The name of the class declaring the field.
+     * @param fieldName The name of the field.
+     * @return The name of the class, or null if the field was not injected or was provided by a parent injector.
+     */
+    @Nullable
+    public String getBinding(@NotNull String className, @NotNull String fieldName) {
+        return this.bindings.getOrDefault(className, Collections.emptyMap()).get(fieldName);
+    }
+
+    /**
+     * Checks that all the classes of this snapshot can still be found, without loading them.
+     *
+     * @param classLoaders The class loaders of the injection.
+     * @return The name of the first class which cannot be found, or an empty {@link Optional} if they all can.
+     */
+    public Optional<String> findMissingClass(@NotNull Collection<ClassLoader> classLoaders) {
+        List<String> classNames = new ArrayList<>(this.index.getProviders().keySet());
+        classNames.addAll(this.index.getInjectedFields().keySet());
+
+        for (String className : classNames) {
+            String resource = className.replace('.', '/') + ".class";
+
+            if (classLoaders.stream().noneMatch(classLoader -> classLoader.getResource(resource) != null)) {
+                return Optional.of(className);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Get the classpath fingerprint of this snapshot.
+     *
+     * @return The fingerprint.
+     */
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Get the index of this snapshot.
+     *
+     * @return The index.
+     */
+    public InjectionIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Writes the snapshot in its binary format.
+     *
+     * @param outputStream The stream to write to.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public void write(@NotNull OutputStream outputStream) throws IOException {
+        Map<String, Integer> names = new LinkedHashMap<>();
+        for (InjectPriority priority : InjectPriority.values()) {
+            names.putIfAbsent(priority.name(), names.size());
+        }
+        this.index.getProviders().keySet().forEach(className -> names.putIfAbsent(className, names.size()));
+        this.index.getInjectedFields().forEach((className, fieldNames) -> {
+            names.putIfAbsent(className, names.size());
+            fieldNames.forEach(fieldName -> names.putIfAbsent(fieldName, names.size()));
+        });
+        this.bindings.values().forEach(fields -> fields.values().forEach(providerClassName -> names.putIfAbsent(providerClassName, names.size())));
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(InjectionSnapshot.MAGIC);
+        output.writeInt(InjectionSnapshot.VERSION);
+        output.writeUTF(this.fingerprint);
+
+        output.writeInt(names.size());
+        for (String name : names.keySet()) {
+            output.writeUTF(name);
+        }
+
+        output.writeInt(this.index.getProviders().size());
+        for (Map.Entry<String, InjectPriority> entry : this.index.getProviders().entrySet()) {
+            output.writeInt(names.get(entry.getKey()));
+            output.writeInt(names.get(entry.getValue().name()));
+        }
+
+        output.writeInt(this.index.getInjectedFields().size());
+        for (Map.Entry<String, List<String>> entry : this.index.getInjectedFields().entrySet()) {
+            output.writeInt(names.get(entry.getKey()));
+            output.writeInt(entry.getValue().size());
+
+            for (String fieldName : entry.getValue()) {
+                String providerClassName = this.getBinding(entry.getKey(), fieldName);
+
+                output.writeInt(names.get(fieldName));
+                output.writeInt(providerClassName == null ? InjectionSnapshot.NO_PROVIDER : names.get(providerClassName));
+            }
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(OutputStream)}.
+     *
+     * @param inputStream The stream to read from.
+     * @return The snapshot.
+     * @throws IOException If the snapshot cannot be read or is malformed.
+     */
+    public static InjectionSnapshot read(@NotNull InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        return InjectionSnapshot.readBody(input, InjectionSnapshot.readHeader(input));
+    }
+
+    /**
+     * Loads the snapshot of a file, if it was taken with the given classpath fingerprint.
+     *
+     * @param file        The snapshot file.
+     * @param fingerprint The current classpath fingerprint.
+     * @return The snapshot, or an empty {@link Optional} if there is none, it cannot be read or it was taken with
+     * another classpath.
+     */
+    public static Optional<InjectionSnapshot> load(@NotNull Path file, @NotNull String fingerprint) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream input = new DataInputStream(inputStream);
+
+            // Checked before the rest is read, as a snapshot of another classpath is not used anyway
+            String snapshotFingerprint = InjectionSnapshot.readHeader(input);
+            if (!snapshotFingerprint.equals(fingerprint)) {
+                InjectionSnapshot.LOGGER.info("Ignoring snapshot {}, the classpath changed", file);
+                return Optional.empty();
+            }
+
+            return Optional.of(InjectionSnapshot.readBody(input, snapshotFingerprint));
+        } catch (EOFException e) {
+            InjectionSnapshot.LOGGER.warn("Ignoring truncated snapshot {}", file);
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            InjectionSnapshot.LOGGER.warn("Ignoring unreadable snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String readHeader(DataInputStream input) throws IOException {
+        if (input.readInt() != InjectionSnapshot.MAGIC || input.readInt() != InjectionSnapshot.VERSION) {
+            throw new IOException("Unknown snapshot format");
+        }
+
+        return input.readUTF();
+    }
+
+    private static InjectionSnapshot readBody(DataInputStream input, String fingerprint) throws IOException {
+        InjectionSnapshot snapshot = new InjectionSnapshot(fingerprint, new InjectionIndex());
+
+        try {
+            // Not sized from the count, so a corrupt count fails at the end of the stream instead of allocating
+            int nameCount = InjectionSnapshot.readCount(input);
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < nameCount; i++) {
+                names.add(input.readUTF());
+            }
+
+            int providerCount = InjectionSnapshot.readCount(input);
+            for (int i = 0; i < providerCount; i++) {
+                String className = InjectionSnapshot.readName(input, names);
+                snapshot.index.addProvider(className, InjectPriority.valueOf(InjectionSnapshot.readName(input, names)));
+            }
+
+            int classCount = InjectionSnapshot.readCount(input);
+            for (int i = 0; i < classCount; i++) {
+                String className = InjectionSnapshot.readName(input, names);
+                int fieldCount = InjectionSnapshot.readCount(input);
+
+                for (int j = 0; j < fieldCount; j++) {
+                    String fieldName = InjectionSnapshot.readName(input, names);
+                    int provider = input.readInt();
+
+                    snapshot.index.addInjectedField(className, fieldName);
+                    if (provider != InjectionSnapshot.NO_PROVIDER) {
+                        snapshot.addBinding(className, fieldName, InjectionSnapshot.getName(names, provider));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed snapshot", e);
+        }
+
+        return snapshot;
+    }
+
+    private static int readCount(DataInputStream input) throws IOException {
+        int count = input.readInt();
+
+        if (count < 0) {
+            throw new IOException("Malformed snapshot, negative count " + count);
+        }
+
+        return count;
+    }
+
+    private static String readName(DataInputStream input, List<String> names) throws IOException {
+        return InjectionSnapshot.getName(names, input.readInt());
+    }
+
+    private static String getName(List<String> names, int position) throws IOException {
+        if (position < 0 || position >= names.size()) {
+            throw new IOException("Malformed snapshot, unknown name " + position);
+        }
+
+        return names.get(position);
+    }
+
+    /**
+     * Stores the snapshot in a file, replacing the previous one.
+     *
+     * @param file The snapshot file.
+     */
+    public void store(@NotNull Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = null;
+
+        try {
+            Files.createDirectories(directory);
+
+            // Write to a temporary file first so concurrent JVMs never read a partial snapshot
+            temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                this.write(outputStream);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            InjectionSnapshot.LOGGER.warn("Cannot write snapshot {}: {}", file, e.getMessage());
+
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // Nothing more can be done, the file is only garbage next to the snapshot
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import io.github.classgraph.ClassGraph;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the injector reads from the classpath when it scans it with ClassGraph.
+ * <p>
+ * A new {@link ClassGraph} is configured from the profile for every scan, so the packages of one scan never leak
+ * into the next one. A profile is immutable, each list method returns a new profile, so a profile can be shared by
+ * several injectors.
+ *
+ * @author Azn9
+ */
+public final class ScanProfile {
+
+    private final boolean allInfo;
+    private final List<String> acceptedPackages;
+    private final List<String> rejectedPackages;
+    private final List<String> acceptedJars;
+    private final List<String> rejectedJars;
+
+    private ScanProfile(boolean allInfo, List<String> acceptedPackages, List<String> rejectedPackages, List<String> acceptedJars, List<String> rejectedJars) {
+        this.allInfo = allInfo;
+        this.acceptedPackages = acceptedPackages;
+        this.rejectedPackages = rejectedPackages;
+        this.acceptedJars = acceptedJars;
+        this.rejectedJars = rejectedJars;
+    }
+
+    /**
+     * Creates a profile reading only the class and field annotations, which is all the injector needs.
+     * Method info, static final values and the other ClassGraph info are not parsed.
+     *
+     * @return The profile.
+     */
+    public static ScanProfile minimal() {
+        return new ScanProfile(false, List.of(), List.of(), List.of(), List.of());
+    }
+
+    /**
+     * Creates a profile reading all the info ClassGraph can read, like the injector did before scan profiles.
+     *
+     * @return The profile.
+     */
+    public static ScanProfile allInfo() {
+        return new ScanProfile(true, List.of(), List.of(), List.of(), List.of());
+    }
+
+    /**
+     * Only scan these packages, in addition to the packages given to the injection.
+     *
+     * @param packageName The packages name.
+     * @return A copy of this profile with the new list.
+     */
+    public ScanProfile acceptPackages(@NotNull String... packageName) {
+        return new ScanProfile(this.allInfo, ScanProfile.concat(this.acceptedPackages, packageName), this.rejectedPackages, this.acceptedJars, this.rejectedJars);
+    }
+
+    /**
+     * Never scan these packages, even inside an accepted package.
+     *
+     * @param packageName The packages name.
+     * @return A copy of this profile with the new list.
+     */
+    public ScanProfile rejectPackages(@NotNull String... packageName) {
+        return new ScanProfile(this.allInfo, this.acceptedPackages, ScanProfile.concat(this.rejectedPackages, packageName), this.acceptedJars, this.rejectedJars);
+    }
+
+    /**
+     * Only scan these jars. Only applies to {@link IndexSource#CLASSPATH_SCAN}.
+     *
+     * @param jarName The jar names, which can contain {@code *} wildcards.
+     * @return A copy of this profile with the new list.
+     */
+    public ScanProfile acceptJars(@NotNull String... jarName) {
+        return new ScanProfile(this.allInfo, this.acceptedPackages, this.rejectedPackages, ScanProfile.concat(this.acceptedJars, jarName), this.rejectedJars);
+    }
+
+    /**
+     * Never scan these jars. Only applies to {@link IndexSource#CLASSPATH_SCAN}.
+     *
+     * @param jarName The jar names, which can contain {@code *} wildcards.
+     * @return A copy of this profile with the new list.
+     */
+    public ScanProfile rejectJars(@NotNull String... jarName) {
+        return new ScanProfile(this.allInfo, this.acceptedPackages, this.rejectedPackages, this.acceptedJars, ScanProfile.concat(this.rejectedJars, jarName));
+    }
+
+    private static List<String> concat(List<String> list, String... values) {
+        List<String> result = new ArrayList<>(list);
+        result.addAll(Arrays.asList(values));
+        return List.copyOf(result);
+    }
+
+    /**
+     * Creates a {@link ClassGraph} scanning the given class loaders with this profile.
+     *
+     * @param classLoaders  The class loaders to scan.
+     * @param ignoreParents true to only scan the classpath elements of the given class loaders, not of their parents.
+     * @param packageName   The packages name.
+     * @return The configured {@link ClassGraph}.
+     */
+    public ClassGraph newClassGraph(@NotNull List<ClassLoader> classLoaders, boolean ignoreParents, String... packageName) {
+        ClassGraph classGraph = new ClassGraph();
+
+        if (this.allInfo) {
+            classGraph.enableAllInfo();
+        } else {
+            // @Inject fields are usually private, and @Provides classes are not always public
+            classGraph.enableClassInfo()
+                    .enableFieldInfo()
+                    .enableAnnotationInfo()
+                    .ignoreClassVisibility()
+                    .ignoreFieldVisibility();
+        }
+
+        classGraph.overrideClassLoaders(classLoaders.toArray(new ClassLoader[0]));
+        if (ignoreParents) {
+            classGraph.ignoreParentClassLoaders();
+        }
+
+        classGraph.acceptPackages(packageName);
+        classGraph.acceptPackages(this.acceptedPackages.toArray(new String[0]));
+        classGraph.rejectPackages(this.rejectedPackages.toArray(new String[0]));
+        classGraph.acceptJars(this.acceptedJars.toArray(new String[0]));
+        classGraph.rejectJars(this.rejectedJars.toArray(new String[0]));
+
+        return classGraph;
+    }
+
+    /**
+     * Applies the package lists of this profile to an index which was not scanned with it, like a compiled index.
+     *
+     * @param index       The index.
+     * @param packageName The packages name.
+     * @return The classes of the index in the scanned packages.
+     */
+    public InjectionIndex filter(@NotNull InjectionIndex index, String... packageName) {
+        List<String> packages = new ArrayList<>(Arrays.asList(packageName));
+        packages.addAll(this.acceptedPackages);
+
+        return index.filter(packages.toArray(new String[0])).reject(this.rejectedPackages.toArray(new String[0]));
+    }
+
+    /**
+     * Describes the accept and reject lists, so a cached index is not reused with other lists.
+     *
+     * @return The description of the lists.
+     */
+    @Override
+    public String toString() {
+        return "ScanProfile{" +
+                "acceptedPackages=" + this.acceptedPackages +
+                ", rejectedPackages=" + this.rejectedPackages +
+                ", acceptedJars=" + this.acceptedJars +
+                ", rejectedJars=" + this.rejectedJars +
+                '}';
+    }
+}
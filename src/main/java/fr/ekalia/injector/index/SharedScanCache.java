@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * A cache of the scanned classes shared by every injector of the JVM, so injectors scanning the same class loader
+ * with the same packages scan it only once.
+ * <p>
+ * The class loaders are weakly referenced, and an {@link InjectionIndex} only holds class names, so a cached index
+ * never prevents its class loader from being collected. The cached indexes must not be modified.
+ *
+ * @author Azn9
+ */
+public final class SharedScanCache {
+
+    private static final Map<ClassLoader, Map<String, CompletableFuture<InjectionIndex>>> INDEXES = new WeakHashMap<>();
+
+    private SharedScanCache() {
+    }
+
+    /**
+     * Get the index of a class loader, scanning it if no other injector did.
+     * Concurrent calls with the same arguments wait for a single scan.
+     *
+     * @param classLoader The scanned class loader.
+     * @param key         Everything else the scan depends on, like the packages and the scan profile.
+     * @param scanner     The scan of the class loader.
+     * @return The index.
+     */
+    public static InjectionIndex get(@NotNull ClassLoader classLoader, @NotNull String key, @NotNull Supplier<InjectionIndex> scanner) {
+        Map<String, CompletableFuture<InjectionIndex>> indexes;
+        synchronized (SharedScanCache.INDEXES) {
+            indexes = SharedScanCache.INDEXES.computeIfAbsent(classLoader, k -> new ConcurrentHashMap<>());
+        }
+
+        CompletableFuture<InjectionIndex> future = new CompletableFuture<>();
+        CompletableFuture<InjectionIndex> existing = indexes.putIfAbsent(key, future);
+
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                // The scan failed in another injector, which already reported it
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            InjectionIndex index = scanner.get();
+            future.complete(index);
+
+            return index;
+        } catch (RuntimeException | Error e) {
+            // Let the next injector try again
+            indexes.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forgets the indexes of a class loader, for example when its classpath changed.
+     *
+     * @param classLoader The class loader.
+     */
+    public static void invalidate(@NotNull ClassLoader classLoader) {
+        synchronized (SharedScanCache.INDEXES) {
+            SharedScanCache.INDEXES.remove(classLoader);
+        }
+    }
+
+    /**
+     * Forgets all the indexes.
+     */
+    public static void clear() {
+        synchronized (SharedScanCache.INDEXES) {
+            SharedScanCache.INDEXES.clear();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.plan;
+
+import fr.ekalia.injector.annotation.Inject;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The fields annotated with {@link Inject} declared by a class, with their setters.
+ * A plan is computed once per class and cached for the lifetime of the class.
+ *
+ * @author Azn9
+ */
+public final class InjectionPlan {
+
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+
+    private final List<InjectionSite> staticSites;
+    private final List<InjectionSite> instanceSites;
+
+    private InjectionPlan(Class<?> type) {
+        List<InjectionSite> sites = new ArrayList<>();
+        // The fields of the superclasses come first, like the constructors which set them
+        List<InjectionSite> memberSites = new ArrayList<>(type.getSuperclass() == null ? List.of() : InjectionPlan.of(type.getSuperclass()).getInstanceSites());
+
+        for (Field field : type.getDeclaredFields()) {
+            if (!field.isAnnotationPresent(Inject.class)) {
+                continue;
+            }
+
+            if (Modifier.isStatic(field.getModifiers())) {
+                sites.add(InjectionSite.of(field));
+            } else {
+                memberSites.add(InjectionSite.of(field));
+            }
+        }
+
+        this.staticSites = List.copyOf(sites);
+        this.instanceSites = List.copyOf(memberSites);
+    }
+
+    /**
+     * Get the plan of a class.
+     *
+     * @param type The class.
+     * @return The plan, computed on first call.
+     */
+    public static InjectionPlan of(@NotNull Class<?> type) {
+        return InjectionPlan.PLANS.get(type);
+    }
+
+    /**
+     * Get the static fields annotated with {@link Inject} among the given fields of a class, without reading the
+     * other fields. The sites are not cached.
+     *
+     * @param type       The class.
+     * @param fieldNames The names of the fields, as found by the scan.
+     * @return The injection sites.
+     * @throws NoSuchFieldException If the class has no field with one of the names.
+     */
+    public static List<InjectionSite> getStaticSites(@NotNull Class<?> type, @NotNull Collection<String> fieldNames) throws NoSuchFieldException {
+        List<InjectionSite> sites = new ArrayList<>(fieldNames.size());
+
+        for (String fieldName : fieldNames) {
+            Field field = type.getDeclaredField(fieldName);
+
+            if (field.isAnnotationPresent(Inject.class) && Modifier.isStatic(field.getModifiers())) {
+                sites.add(InjectionSite.of(field));
+            }
+        }
+
+        return sites;
+    }
+
+    /**
+     * Get the static fields annotated with {@link Inject}.
+     *
+     * @return The injection sites.
+     */
+    public List<InjectionSite> getStaticSites() {
+        return this.staticSites;
+    }
+
+    /**
+     * Get the instance fields annotated with {@link Inject}, including the ones declared by the superclasses.
+     *
+     * @return The injection sites.
+     */
+    public List<InjectionSite> getInstanceSites() {
+        return this.instanceSites;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.plan;
+
+import fr.ekalia.injector.annotation.Inject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * A field annotated with {@link Inject}, with a setter resolved once so injecting into it does no access check.
+ *
+ * @author Azn9
+ */
+public final class InjectionSite {
+
+    private final Field field;
+    private final MethodHandle setter;
+    private final String error;
+
+    private InjectionSite(Field field, MethodHandle setter, String error) {
+        this.field = field;
+        this.setter = setter;
+        this.error = error;
+    }
+
+    /**
+     * Resolves the setter of a field.
+     *
+     * @param field The field annotated with {@link Inject}.
+     * @return The injection site, which is not settable if the field cannot be accessed.
+     */
+    static InjectionSite of(@NotNull Field field) {
+        if (Modifier.isFinal(field.getModifiers())) {
+            return new InjectionSite(field, null, "field is final");
+        }
+
+        try {
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                // The package is not opened to the injector, fall back to the accessible flag
+                if (!field.trySetAccessible()) {
+                    return new InjectionSite(field, null, "field is not accessible");
+                }
+
+                lookup = MethodHandles.lookup();
+            }
+
+            // Erase the handle type so every setter is called the same way
+            MethodType setterType = Modifier.isStatic(field.getModifiers())
+                    ? MethodType.methodType(void.class, Object.class)
+                    : MethodType.methodType(void.class, Object.class, Object.class);
+            MethodHandle setter = lookup.unreflectSetter(field).asType(setterType);
+
+            return new InjectionSite(field, setter, null);
+        } catch (IllegalAccessException e) {
+            return new InjectionSite(field, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the value of a static field.
+     *
+     * @param value The value to inject.
+     * @throws ClassCastException If the value cannot be assigned to the field.
+     */
+    public void set(Object value) {
+        try {
+            this.setter.invokeExact(value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Sets the value of an instance field.
+     *
+     * @param target The instance declaring the field.
+     * @param value  The value to inject.
+     * @throws ClassCastException If the target does not declare the field or the value cannot be assigned to it.
+     */
+    public void set(Object target, Object value) {
+        try {
+            this.setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Check if the field can be set.
+     *
+     * @return true if the field can be set, false otherwise
+     */
+    public boolean isSettable() {
+        return this.setter != null;
+    }
+
+    /**
+     * Get the reason why the field cannot be set.
+     *
+     * @return The reason, or null if the field can be set
+     */
+    @Nullable
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Get the field.
+     *
+     * @return The field
+     */
+    public Field getField() {
+        return this.field;
+    }
+
+    /**
+     * Get the type of the field.
+     *
+     * @return The type of the field
+     */
+    public Class<?> getType() {
+        return this.field.getType();
+    }
+
+    @Override
+    public String toString() {
+        return this.field.getDeclaringClass().getName() + '#' + this.field.getName();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.registry;
+
+import fr.ekalia.injector.annotation.Inject;
+import fr.ekalia.injector.plan.InjectionSite;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The fields annotated with {@link Inject} found during the injection, indexed by their type so the fields accepting
+ * a value are found without scanning the classpath again.
+ *
+ * @author Azn9
+ */
+public class InjectionPointIndex {
+
+    private final Map<Class<?>, Set<InjectionSite>> fieldsByType = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a field annotated with {@link Inject}.
+     *
+     * @param site The injection site of the field.
+     */
+    public void add(@NotNull InjectionSite site) {
+        // Added atomically, so a concurrent removal cannot drop the set this field is added to
+        this.fieldsByType.compute(site.getType(), (k, sites) -> {
+            Set<InjectionSite> typeSites = sites == null ? ConcurrentHashMap.newKeySet() : sites;
+            typeSites.add(site);
+            return typeSites;
+        });
+    }
+
+    /**
+     * Removes the fields matching a predicate.
+     *
+     * @param filter The predicate of the fields to remove.
+     */
+    public void removeIf(@NotNull Predicate<InjectionSite> filter) {
+        for (Class<?> type : this.fieldsByType.keySet()) {
+            this.fieldsByType.computeIfPresent(type, (k, sites) -> {
+                sites.removeIf(filter);
+                return sites.isEmpty() ? null : sites;
+            });
+        }
+    }
+
+    /**
+     * Get the fields a value of the given class can be assigned to.
+     *
+     * @param type The class of the value.
+     * @return The injection sites of the fields accepting the value.
+     */
+    public List<InjectionSite> getAssignableFields(@NotNull Class<?> type) {
+        List<InjectionSite> fields = new ArrayList<>();
+
+        for (Class<?> supertype : ResolutionIndex.getSupertypes(type)) {
+            Set<InjectionSite> typeFields = this.fieldsByType.get(supertype);
+
+            if (typeFields != null) {
+                fields.addAll(typeFields);
+            }
+        }
+
+        return fields;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.registry;
+
+import fr.ekalia.injector.annotation.Inject;
+import fr.ekalia.injector.annotation.Provides;
+import fr.ekalia.injector.plan.InjectionSite;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependencies between classes annotated with {@link Provides}: a provider depends on every other provider that
+ * can be injected into one of its own fields annotated with {@link Inject}.
+ * <p>
+ * Dependency cycles are detected and their edges removed, so the remaining graph can always be ordered.
+ *
+ * @author Azn9
+ */
+public class ProviderGraph {
+
+    private final Map<Class<?>, Set<Class<?>>> dependencies = new LinkedHashMap<>();
+    private final List<List<Class<?>>> cycles = new ArrayList<>();
+
+    // Tarjan's strongly connected components state
+    private final Map<Class<?>, Integer> indexes = new HashMap<>();
+    private final Map<Class<?>, Integer> lowLinks = new HashMap<>();
+    private final Deque<Class<?>> stack = new ArrayDeque<>();
+    private final Set<Class<?>> onStack = new LinkedHashSet<>();
+
+    private ProviderGraph() {
+    }
+
+    /**
+     * Builds the dependency graph of the given providers.
+     *
+     * @param injectedFields The providers, mapped to the injection sites of their fields annotated with {@link Inject}.
+     * @return The dependency graph.
+     */
+    public static ProviderGraph build(@NotNull Map<Class<?>, ? extends Collection<InjectionSite>> injectedFields) {
+        ProviderGraph graph = new ProviderGraph();
+
+        // Index the providers by every type they can be injected as
+        Map<Class<?>, List<Class<?>>> providersByType = new HashMap<>();
+        for (Class<?> provider : injectedFields.keySet()) {
+            for (Class<?> supertype : ResolutionIndex.getSupertypes(provider)) {
+                providersByType.computeIfAbsent(supertype, k -> new ArrayList<>()).add(provider);
+            }
+        }
+
+        injectedFields.forEach((provider, fields) -> {
+            Set<Class<?>> providerDependencies = new LinkedHashSet<>();
+
+            for (InjectionSite site : fields) {
+                providerDependencies.addAll(providersByType.getOrDefault(site.getType(), List.of()));
+            }
+
+            providerDependencies.remove(provider);
+            graph.dependencies.put(provider, providerDependencies);
+        });
+
+        for (Class<?> provider : graph.dependencies.keySet()) {
+            if (!graph.indexes.containsKey(provider)) {
+                graph.findCycles(provider);
+            }
+        }
+
+        // Break the cycles, their providers are created without waiting for each other
+        for (List<Class<?>> cycle : graph.cycles) {
+            for (Class<?> provider : cycle) {
+                graph.dependencies.get(provider).removeAll(cycle);
+            }
+        }
+
+        return graph;
+    }
+
+    private void findCycles(Class<?> provider) {
+        int index = this.indexes.size();
+        this.indexes.put(provider, index);
+        this.lowLinks.put(provider, index);
+        this.stack.push(provider);
+        this.onStack.add(provider);
+
+        for (Class<?> dependency : this.dependencies.get(provider)) {
+            if (!this.indexes.containsKey(dependency)) {
+                this.findCycles(dependency);
+                this.lowLinks.put(provider, Math.min(this.lowLinks.get(provider), this.lowLinks.get(dependency)));
+            } else if (this.onStack.contains(dependency)) {
+                this.lowLinks.put(provider, Math.min(this.lowLinks.get(provider), this.indexes.get(dependency)));
+            }
+        }
+
+        if (this.lowLinks.get(provider).equals(this.indexes.get(provider))) {
+            List<Class<?>> component = new ArrayList<>();
+            Class<?> member;
+
+            do {
+                member = this.stack.pop();
+                this.onStack.remove(member);
+                component.add(member);
+            } while (member != provider);
+
+            if (component.size() > 1) {
+                this.cycles.add(component);
+            }
+        }
+    }
+
+    /**
+     * Get the providers that must be created before the given one.
+     *
+     * @param provider The provider.
+     * @return Its dependencies, without the ones belonging to a cycle.
+     */
+    public Set<Class<?>> getDependencies(@NotNull Class<?> provider) {
+        return Collections.unmodifiableSet(this.dependencies.getOrDefault(provider, Set.of()));
+    }
+
+    /**
+     * Get the providers in dependency order: every provider comes after all of its dependencies.
+     *
+     * @return The ordered providers.
+     */
+    public List<Class<?>> getOrder() {
+        List<Class<?>> order = new ArrayList<>(this.dependencies.size());
+        Map<Class<?>, Integer> remaining = new HashMap<>();
+        Map<Class<?>, List<Class<?>>> dependents = new HashMap<>();
+        Deque<Class<?>> ready = new ArrayDeque<>();
+
+        this.dependencies.forEach((provider, providerDependencies) -> {
+            remaining.put(provider, providerDependencies.size());
+            providerDependencies.forEach(dependency -> dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(provider));
+
+            if (providerDependencies.isEmpty()) {
+                ready.add(provider);
+            }
+        });
+
+        while (!ready.isEmpty()) {
+            Class<?> provider = ready.poll();
+            order.add(provider);
+
+            for (Class<?> dependent : dependents.getOrDefault(provider, List.of())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     * Get the dependency cycles found between the providers.
+     *
+     * @return The providers of each cycle.
+     */
+    public List<List<Class<?>>> getCycles() {
+        return Collections.unmodifiableList(this.cycles);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.registry;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.util.Tuple2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registered classes with their priority and value, safe to use from several threads.
+ * <p>
+ * Reads never lock nor allocate. Writes are serialized and update the {@link ResolutionIndex} before returning,
+ * each type being updated atomically according to the priorities.
+ *
+ * @author Azn9
+ */
+public class ProviderRegistry {
+
+    private final Object writeLock = new Object();
+    private final Map<Class<?>, Tuple2<InjectPriority, Object>> entries = new ConcurrentHashMap<>();
+    // Registration order, only used under the write lock to break priority ties when resolving again
+    private final Map<Class<?>, Tuple2<InjectPriority, Object>> orderedEntries = new LinkedHashMap<>();
+    private final ResolutionIndex resolutionIndex = new ResolutionIndex();
+    private volatile long version;
+
+    /**
+     * Registers a class, replacing any value already registered for this exact class.
+     *
+     * @param type     The registered class.
+     * @param priority The priority of the value.
+     * @param value    The value.
+     */
+    public void put(@NotNull Class<?> type, @NotNull InjectPriority priority, @NotNull Object value) {
+        Tuple2<InjectPriority, Object> entry = new Tuple2<>(priority, value);
+
+        synchronized (this.writeLock) {
+            this.entries.put(type, entry);
+
+            if (this.orderedEntries.put(type, entry) != null) {
+                // The replaced value may be the candidate of some types, so resolve them again
+                this.resolutionIndex.update(type, this.orderedEntries);
+            } else {
+                this.resolutionIndex.add(type, entry);
+            }
+
+            // Only changed once the index is up to date, so a resolution cached with the new version is too
+            this.version++;
+        }
+    }
+
+    /**
+     * Registers several classes at once, resolving the types they can be assigned to in a single pass.
+     * A class already registered with a higher priority is not replaced.
+     *
+     * @param registrations The classes to register with their priority and value.
+     * @return The registrations which were applied.
+     */
+    public Map<Class<?>, Tuple2<InjectPriority, Object>> putAll(@NotNull Map<Class<?>, Tuple2<InjectPriority, Object>> registrations) {
+        Map<Class<?>, Tuple2<InjectPriority, Object>> applied = new LinkedHashMap<>();
+
+        synchronized (this.writeLock) {
+            registrations.forEach((type, entry) -> {
+                Tuple2<InjectPriority, Object> current = this.orderedEntries.get(type);
+
+                if (current == null || entry.getT1().ordinal() >= current.getT1().ordinal()) {
+                    applied.put(type, entry);
+                }
+            });
+
+            if (applied.isEmpty()) {
+                return applied;
+            }
+
+            this.entries.putAll(applied);
+            this.orderedEntries.putAll(applied);
+            this.resolutionIndex.update(applied.keySet(), this.orderedEntries);
+
+            this.version++;
+        }
+
+        return applied;
+    }
+
+    /**
+     * Removes a registered class, the types it was resolved for fall back to the next candidate.
+     *
+     * @param type The registered class.
+     * @return The removed priority and value, or null if the class is not registered.
+     */
+    @Nullable
+    public Tuple2<InjectPriority, Object> remove(@NotNull Class<?> type) {
+        synchronized (this.writeLock) {
+            Tuple2<InjectPriority, Object> removed = this.entries.remove(type);
+
+            if (removed != null) {
+                this.orderedEntries.remove(type);
+                this.resolutionIndex.update(type, this.orderedEntries);
+                this.version++;
+            }
+
+            return removed;
+        }
+    }
+
+    /**
+     * Get the value registered for an exact class.
+     *
+     * @param type The registered class.
+     * @return The priority and the value, or null if the class is not registered.
+     */
+    @Nullable
+    public Tuple2<InjectPriority, Object> get(@NotNull Class<?> type) {
+        return this.entries.get(type);
+    }
+
+    /**
+     * Get the candidate with the highest priority for a type.
+     *
+     * @param type The requested type.
+     * @return The priority and the value of the candidate, or null if no registered class is assignable to the type.
+     */
+    @Nullable
+    public Tuple2<InjectPriority, Object> resolve(@NotNull Class<?> type) {
+        return this.resolutionIndex.resolve(type);
+    }
+
+    /**
+     * Get the version of the registry, incremented by every change, so a resolution can be cached until the next one.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Get all the registered classes.
+     *
+     * @return The registered classes with their priority and value.
+     */
+    public Map<Class<?>, Tuple2<InjectPriority, Object>> getEntries() {
+        return Collections.unmodifiableMap(this.entries);
+    }
+}
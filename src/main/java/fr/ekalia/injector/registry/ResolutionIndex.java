@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.registry;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.util.Tuple2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps every supertype and interface of the registered classes to the candidate with the highest priority, so a
+ * type resolves with a single lookup instead of a scan of every registered class.
+ * <p>
+ * When several candidates share the highest priority, the first one added wins.
+ * Resolving never locks nor allocates; the updates must be serialized by the caller, and each type is updated
+ * atomically so a concurrent resolution sees either the previous or the new candidate.
+ *
+ * @author Azn9
+ */
+public class ResolutionIndex {
+
+    private static final ClassValue<Set<Class<?>>> SUPERTYPES = new ClassValue<>() {
+        @Override
+        protected Set<Class<?>> computeValue(Class<?> type) {
+            Set<Class<?>> supertypes = new LinkedHashSet<>();
+            Deque<Class<?>> toVisit = new ArrayDeque<>();
+            toVisit.add(type);
+
+            while (!toVisit.isEmpty()) {
+                Class<?> current = toVisit.poll();
+
+                if (!supertypes.add(current)) {
+                    continue;
+                }
+
+                if (current.getSuperclass() != null) {
+                    toVisit.add(current.getSuperclass());
+                }
+
+                for (Class<?> anInterface : current.getInterfaces()) {
+                    toVisit.add(anInterface);
+                }
+            }
+
+            return Set.copyOf(supertypes);
+        }
+    };
+
+    private final Map<Class<?>, Tuple2<InjectPriority, Object>> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * Get the class itself, its superclasses and all the interfaces it implements.
+     *
+     * @param type The class.
+     * @return The types a value of the given class can be assigned to.
+     */
+    public static Set<Class<?>> getSupertypes(@NotNull Class<?> type) {
+        return ResolutionIndex.SUPERTYPES.get(type);
+    }
+
+    /**
+     * Adds a registered class to the index.
+     *
+     * @param type  The registered class.
+     * @param entry The priority and the value of the class.
+     */
+    public void add(@NotNull Class<?> type, @NotNull Tuple2<InjectPriority, Object> entry) {
+        for (Class<?> supertype : ResolutionIndex.getSupertypes(type)) {
+            this.candidates.merge(supertype, entry, (current, added) -> added.getT1().ordinal() > current.getT1().ordinal() ? added : current);
+        }
+    }
+
+    /**
+     * Resolves again every type a class can be assigned to, needed when a registered class is replaced or removed.
+     *
+     * @param type    The replaced or removed class.
+     * @param entries The registered classes with their priority and value, in registration order.
+     */
+    public void update(@NotNull Class<?> type, @NotNull Map<Class<?>, Tuple2<InjectPriority, Object>> entries) {
+        this.update(List.of(type), entries);
+    }
+
+    /**
+     * Resolves again every type the given classes can be assigned to, in a single pass over the registered classes.
+     *
+     * @param types   The added, replaced or removed classes.
+     * @param entries The registered classes with their priority and value, in registration order.
+     */
+    public void update(@NotNull Collection<Class<?>> types, @NotNull Map<Class<?>, Tuple2<InjectPriority, Object>> entries) {
+        Set<Class<?>> changedTypes = new HashSet<>();
+        for (Class<?> type : types) {
+            changedTypes.addAll(ResolutionIndex.getSupertypes(type));
+        }
+
+        Map<Class<?>, Tuple2<InjectPriority, Object>> optimalCandidates = new HashMap<>();
+        for (Map.Entry<Class<?>, Tuple2<InjectPriority, Object>> entry : entries.entrySet()) {
+            for (Class<?> supertype : ResolutionIndex.getSupertypes(entry.getKey())) {
+                if (changedTypes.contains(supertype)) {
+                    // On equal priorities, the first registered class stays the candidate
+                    optimalCandidates.merge(supertype, entry.getValue(), (current, candidate) -> candidate.getT1().ordinal() > current.getT1().ordinal() ? candidate : current);
+                }
+            }
+        }
+
+        for (Class<?> changedType : changedTypes) {
+            Tuple2<InjectPriority, Object> optimal = optimalCandidates.get(changedType);
+
+            if (optimal == null) {
+                this.candidates.remove(changedType);
+            } else {
+                this.candidates.put(changedType, optimal);
+            }
+        }
+    }
+
+    /**
+     * Get the candidate with the highest priority for a type.
+     *
+     * @param type The requested type.
+     * @return The priority and the value of the candidate, or null if no registered class is assignable to the type.
+     */
+    @Nullable
+    public Tuple2<InjectPriority, Object> resolve(@NotNull Class<?> type) {
+        return this.candidates.get(type);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of instances, each borrowed by a single user at a time.
+ * The instances are created on demand, up to the size of the pool.
+ *
+ * @param <T> The type of the instances
+ *
+ * @author Azn9
+ */
+public class InstancePool<T> {
+
+    private final Supplier<? extends T> factory;
+    private final Queue<T> idleInstances = new ConcurrentLinkedQueue<>();
+    // By identity, so only the borrowed instances can be released, once each, and the pool stays bounded
+    private final Set<T> borrowedInstances = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+    private final Semaphore permits;
+    private final int size;
+
+    /**
+     * Create a new pool
+     *
+     * @param factory The factory creating the instances
+     * @param size    The maximum number of instances
+     */
+    public InstancePool(@NotNull Supplier<? extends T> factory, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size of the pool must be positive: " + size);
+        }
+
+        this.factory = factory;
+        this.size = size;
+        this.permits = new Semaphore(size);
+    }
+
+    /**
+     * Borrow an instance, waiting for one to be released if they are all borrowed.
+     * The instance must be given back with {@link #release(Object)}.
+     *
+     * @return The instance
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public T borrow() throws InterruptedException {
+        this.permits.acquire();
+        return this.take();
+    }
+
+    /**
+     * Borrow an instance if one is available, without waiting.
+     * The instance must be given back with {@link #release(Object)}.
+     *
+     * @return The instance, or null if they are all borrowed
+     */
+    @Nullable
+    public T tryBorrow() {
+        return this.permits.tryAcquire() ? this.take() : null;
+    }
+
+    /**
+     * Give back a borrowed instance.
+     *
+     * @param instance The instance
+     * @throws IllegalArgumentException If the instance was not borrowed from this pool, or was already given back
+     */
+    public void release(@NotNull T instance) {
+        if (!this.borrowedInstances.remove(instance)) {
+            throw new IllegalArgumentException("The instance was not borrowed from this pool: " + instance);
+        }
+
+        this.idleInstances.offer(instance);
+        this.permits.release();
+    }
+
+    /**
+     * Borrow an instance for the duration of an action.
+     *
+     * @param action The action using the instance
+     * @param <R>    The type of the result
+     * @return The result of the action
+     * @throws InterruptedException If the thread is interrupted while waiting for an instance
+     */
+    public <R> R apply(@NotNull Function<? super T, ? extends R> action) throws InterruptedException {
+        T instance = this.borrow();
+
+        try {
+            return action.apply(instance);
+        } finally {
+            this.release(instance);
+        }
+    }
+
+    /**
+     * Get the maximum number of instances
+     *
+     * @return The size of the pool
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    private T take() {
+        T instance = this.idleInstances.poll();
+
+        if (instance == null) {
+            try {
+                // The permit guarantees that no more than the size of the pool is created
+                instance = this.factory.get();
+            } catch (RuntimeException | Error e) {
+                this.permits.release();
+                throw e;
+            }
+        }
+
+        this.borrowedInstances.add(instance);
+        return instance;
+    }
+}
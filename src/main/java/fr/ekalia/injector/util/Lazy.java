@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * A value created on first access, at most once even when accessed by several threads.
+ * If the creation fails, or the factory returns null, an exception is thrown to the caller and the next access
+ * tries again.
+ *
+ * @param <T> The type of the value
+ *
+ * @author Azn9
+ */
+public class Lazy<T> implements Supplier<T> {
+
+    private final Object lock = new Object();
+    private Supplier<? extends T> factory;
+    private volatile T value;
+
+    /**
+     * Create a new lazy value
+     *
+     * @param factory The factory creating the value
+     */
+    public Lazy(@NotNull Supplier<? extends T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Get the value, creating it if needed
+     *
+     * @return The value
+     * @throws IllegalStateException If the factory returns null
+     */
+    @Override
+    public T get() {
+        T current = this.value;
+
+        if (current == null) {
+            synchronized (this.lock) {
+                current = this.value;
+
+                if (current == null) {
+                    current = this.factory.get();
+
+                    // A null value could not be told apart from a value not created yet
+                    if (current == null) {
+                        throw new IllegalStateException("The factory of a lazy value returned null");
+                    }
+
+                    this.value = current;
+
+                    // The factory is not needed anymore, let it be collected
+                    this.factory = null;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Check if the value has been created
+     *
+     * @return true if the value has been created, false otherwise
+     */
+    public boolean isCreated() {
+        return this.value != null;
+    }
+}
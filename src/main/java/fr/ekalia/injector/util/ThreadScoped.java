@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A value created once per thread, on the first access of each thread.
+ * Threads never share their value, so it does not need to be thread safe.
+ * <p>
+ * A thread keeps its value until the thread ends or {@link #close()} is called, so a value whose class is unloaded
+ * must be closed.
+ *
+ * @param <T> The type of the value
+ *
+ * @author Azn9
+ */
+public class ThreadScoped<T> implements Supplier<T> {
+
+    private final Supplier<? extends T> factory;
+    private final ThreadLocal<Holder<T>> holders = new ThreadLocal<>();
+    // Weakly referenced, so the holder of a finished thread is collected with it
+    private final Set<Holder<T>> allHolders = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private volatile boolean closed;
+
+    /**
+     * Create a new thread scoped value
+     *
+     * @param factory The factory creating the value of each thread
+     */
+    public ThreadScoped(@NotNull Supplier<? extends T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Get the value of the current thread, creating it if needed
+     *
+     * @return The value
+     * @throws IllegalStateException If the value is closed
+     */
+    @Override
+    public T get() {
+        if (this.closed) {
+            throw new IllegalStateException("The thread scoped value is closed");
+        }
+
+        Holder<T> holder = this.holders.get();
+        if (holder == null) {
+            holder = new Holder<>();
+            this.holders.set(holder);
+            this.allHolders.add(holder);
+        }
+
+        T value = holder.value;
+        if (value == null) {
+            value = this.factory.get();
+            holder.value = value;
+
+            // The value of a thread racing with close is not kept
+            if (this.closed) {
+                holder.value = null;
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Clear the value of every thread, so the threads still running no longer keep their value nor its class.
+     * The value can no longer be read afterwards.
+     */
+    public void close() {
+        this.closed = true;
+
+        synchronized (this.allHolders) {
+            this.allHolders.forEach(holder -> holder.value = null);
+            this.allHolders.clear();
+        }
+    }
+
+    private static final class Holder<T> {
+
+        private volatile T value;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.annotation.InjectScope;
+import fr.ekalia.injector.fixture.ServiceUser;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that nothing in the injector keeps an unloaded class loader alive.
+ *
+ * @author Azn9
+ */
+class UnloadClassLoaderTest {
+
+    private static final String PLUGIN_PACKAGE = "fr.ekalia.injector.fixture.plugin.";
+
+    @Test
+    void unloadedClassLoaderIsCollected() throws Exception {
+        Injector injector = new Injector();
+        injector.startInjection(UnloadClassLoaderTest.class.getClassLoader(), "fr.ekalia.injector.fixture");
+
+        WeakReference<ClassLoader> pluginClassLoader = this.loadPlugin(injector);
+        this.unloadPlugin(injector, pluginClassLoader);
+
+        assertNull(ServiceUser.service);
+        assertNull(ServiceUser.pool);
+        assertNull(ServiceUser.threadService);
+
+        for (int i = 0; i < 50 && pluginClassLoader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertNull(pluginClassLoader.get(), "The unloaded class loader is still referenced");
+    }
+
+    // Separate methods, so no local variable of the test references the plugin
+    private WeakReference<ClassLoader> loadPlugin(Injector injector) throws ReflectiveOperationException, InterruptedException {
+        ClassLoader classLoader = new PluginClassLoader();
+        Class<?> serviceClass = classLoader.loadClass(UnloadClassLoaderTest.PLUGIN_PACKAGE + "PluginService");
+        Class<?> pooledServiceClass = classLoader.loadClass(UnloadClassLoaderTest.PLUGIN_PACKAGE + "PluginPooledService");
+        Class<?> threadServiceClass = classLoader.loadClass(UnloadClassLoaderTest.PLUGIN_PACKAGE + "PluginThreadService");
+
+        injector.addClassLoader(classLoader);
+        RegistrationBatch batch = injector.batch().register(serviceClass.getDeclaredConstructor().newInstance(), InjectPriority.HIGH);
+        UnloadClassLoaderTest.registerScoped(batch, pooledServiceClass, InjectScope.POOLED);
+        UnloadClassLoaderTest.registerScoped(batch, threadServiceClass, InjectScope.THREAD);
+        batch.commit();
+
+        assertNotNull(ServiceUser.service);
+        assertNotNull(ServiceUser.pool);
+        ServiceUser.pool.release(ServiceUser.pool.borrow());
+        // The test thread outlives the plugin, so it must not keep its instance
+        assertNotNull(ServiceUser.threadService);
+        assertNotNull(ServiceUser.threadService.get());
+
+        // Caches the resolved values of the instance fields
+        ServiceUser user = new ServiceUser();
+        injector.injectMembers(user);
+        assertNotNull(user.instanceService);
+
+        return new WeakReference<>(classLoader);
+    }
+
+    private void unloadPlugin(Injector injector, WeakReference<ClassLoader> classLoader) {
+        injector.unloadClassLoader(Objects.requireNonNull(classLoader.get()));
+    }
+
+    private static <T> void registerScoped(RegistrationBatch batch, Class<T> type, InjectScope scope) {
+        Supplier<T> factory = () -> {
+            try {
+                return type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        batch.register(type, factory, InjectPriority.NORMAL, scope);
+    }
+
+    /**
+     * Loads the classes of the plugin package itself, like the class loader of a plugin would.
+     */
+    private static final class PluginClassLoader extends URLClassLoader {
+
+        private PluginClassLoader() {
+            super(new URL[]{ServiceUser.class.getProtectionDomain().getCodeSource().getLocation()}, UnloadClassLoaderTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(UnloadClassLoaderTest.PLUGIN_PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (this.getClassLoadingLock(name)) {
+                Class<?> loadedClass = this.findLoadedClass(name);
+                if (loadedClass == null) {
+                    loadedClass = this.findClass(name);
+                }
+
+                if (resolve) {
+                    this.resolveClass(loadedClass);
+                }
+
+                return loadedClass;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.fixture;
+
+import fr.ekalia.injector.annotation.Inject;
+import fr.ekalia.injector.util.InstancePool;
+
+import java.util.function.Supplier;
+
+/**
+ * Uses the services of a plugin, through static and instance fields.
+ *
+ * @author Azn9
+ */
+public class ServiceUser {
+
+    @Inject
+    public static Service service;
+    @Inject
+    public static InstancePool<PooledService> pool;
+    @Inject
+    public static Supplier<ThreadService> threadService;
+
+    @Inject
+    public Service instanceService;
+}
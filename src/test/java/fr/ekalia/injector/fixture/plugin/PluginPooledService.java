@@ -0,0 +1,26 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.fixture.plugin;
+
+import fr.ekalia.injector.fixture.PooledService;
+
+/**
+ * The pooled service of the plugin, loaded by the plugin class loader.
+ *
+ * @author Azn9
+ */
+public class PluginPooledService implements PooledService {
+}
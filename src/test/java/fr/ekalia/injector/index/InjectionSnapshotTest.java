@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.index;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Writes and reads {@link InjectionSnapshot}, and checks that a corrupt snapshot file is ignored instead of failing
+ * the injection.
+ *
+ * @author Azn9
+ */
+class InjectionSnapshotTest {
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    @Test
+    void writtenSnapshotIsReadBack() throws IOException {
+        InjectionSnapshot snapshot = InjectionSnapshotTest.createSnapshot();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        snapshot.write(output);
+
+        InjectionSnapshot readSnapshot = InjectionSnapshot.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(InjectionSnapshotTest.FINGERPRINT, readSnapshot.getFingerprint());
+        assertEquals(Map.of("app.Database", InjectPriority.HIGH, "app.Cache", InjectPriority.NORMAL), readSnapshot.getIndex().getProviders());
+        assertEquals(Map.of("app.Service", List.of("database", "cache", "clock")), readSnapshot.getIndex().getInjectedFields());
+        assertEquals("app.Database", readSnapshot.getBinding("app.Service", "database"));
+        assertEquals("app.Cache", readSnapshot.getBinding("app.Service", "cache"));
+        assertNull(readSnapshot.getBinding("app.Service", "clock"));
+    }
+
+    @Test
+    void storedSnapshotIsLoaded() throws IOException {
+        Path file = Files.createTempFile("injection", ".snapshot");
+
+        try {
+            InjectionSnapshotTest.createSnapshot().store(file);
+
+            InjectionSnapshot snapshot = InjectionSnapshot.load(file, InjectionSnapshotTest.FINGERPRINT).orElseThrow();
+            assertEquals("app.Database", snapshot.getBinding("app.Service", "database"));
+            assertFalse(InjectionSnapshot.load(file, "another fingerprint").isPresent());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void corruptSnapshotIsIgnored() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InjectionSnapshotTest.createSnapshot().write(output);
+        byte[] bytes = output.toByteArray();
+        // The name count follows the magic number, the version and the fingerprint
+        int nameCountPosition = 4 + 4 + 2 + InjectionSnapshotTest.FINGERPRINT.length();
+
+        List<byte[]> corruptSnapshots = List.of(
+                Arrays.copyOf(bytes, bytes.length / 2),
+                InjectionSnapshotTest.withInt(bytes, nameCountPosition, -1),
+                InjectionSnapshotTest.withInt(bytes, nameCountPosition, Integer.MAX_VALUE),
+                InjectionSnapshotTest.withInt(bytes, bytes.length - 4, 1_000),
+                InjectionSnapshotTest.withInt(bytes, 0, 0)
+        );
+
+        Path file = Files.createTempFile("injection", ".snapshot");
+        try {
+            for (byte[] corruptSnapshot : corruptSnapshots) {
+                Files.write(file, corruptSnapshot);
+
+                assertFalse(InjectionSnapshot.load(file, InjectionSnapshotTest.FINGERPRINT).isPresent());
+                assertThrows(IOException.class, () -> InjectionSnapshot.read(new ByteArrayInputStream(corruptSnapshot)));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void snapshotOfAnotherClasspathIsNotRead() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(0x454B4953);
+        data.writeInt(1);
+        data.writeUTF("another fingerprint");
+        // A name table that could not be read
+        data.writeInt(Integer.MAX_VALUE);
+
+        Path file = Files.createTempFile("injection", ".snapshot");
+        try {
+            Files.write(file, output.toByteArray());
+
+            assertFalse(InjectionSnapshot.load(file, InjectionSnapshotTest.FINGERPRINT).isPresent());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static InjectionSnapshot createSnapshot() {
+        InjectionIndex index = new InjectionIndex();
+        index.addProvider("app.Database", InjectPriority.HIGH);
+        index.addProvider("app.Cache", InjectPriority.NORMAL);
+        index.addInjectedField("app.Service", "database");
+        index.addInjectedField("app.Service", "cache");
+        index.addInjectedField("app.Service", "clock");
+
+        InjectionSnapshot snapshot = new InjectionSnapshot(InjectionSnapshotTest.FINGERPRINT, index);
+        snapshot.addBinding("app.Service", "database", "app.Database");
+        snapshot.addBinding("app.Service", "cache", "app.Cache");
+        return snapshot;
+    }
+
+    private static byte[] withInt(byte[] bytes, int position, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(position, value);
+        return copy;
+    }
+}
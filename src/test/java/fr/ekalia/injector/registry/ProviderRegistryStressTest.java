@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 Ekalia <contact@ekalia.fr>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fr.ekalia.injector.registry;
+
+import fr.ekalia.injector.annotation.InjectPriority;
+import fr.ekalia.injector.util.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Resolves types from the {@link ProviderRegistry} while other threads keep replacing registered classes.
+ * Every resolution must return a candidate, as the resolved types always have at least one registered class.
+ *
+ * @author Azn9
+ */
+class ProviderRegistryStressTest {
+
+    private static final List<Class<?>> TYPES = List.of(ArrayList.class, LinkedList.class, ArrayDeque.class, HashSet.class, TreeSet.class, PriorityQueue.class);
+    private static final InjectPriority[] PRIORITIES = InjectPriority.values();
+    private static final int READERS = 3;
+    private static final int WRITES = 20_000;
+
+    @Test
+    void concurrentRegistrationsNeverHideACandidate() throws Exception {
+        ProviderRegistry registry = new ProviderRegistry();
+        for (Class<?> type : ProviderRegistryStressTest.TYPES) {
+            registry.put(type, InjectPriority.NORMAL, type.getDeclaredConstructor().newInstance());
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger missingCandidates = new AtomicInteger();
+        AtomicInteger resolutions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < ProviderRegistryStressTest.READERS; i++) {
+            threads.add(new Thread(() -> {
+                ProviderRegistryStressTest.await(start);
+
+                while (writing.get()) {
+                    if (registry.resolve(Collection.class) == null) {
+                        missingCandidates.incrementAndGet();
+                    }
+                    resolutions.incrementAndGet();
+                }
+            }));
+        }
+
+        // One writer replaces classes one by one, the other in batches
+        threads.add(new Thread(() -> {
+            ProviderRegistryStressTest.await(start);
+
+            for (int write = 0; write < ProviderRegistryStressTest.WRITES; write++) {
+                Class<?> type = ProviderRegistryStressTest.TYPES.get(write % ProviderRegistryStressTest.TYPES.size());
+                registry.put(type, ProviderRegistryStressTest.PRIORITIES[write % ProviderRegistryStressTest.PRIORITIES.length], ProviderRegistryStressTest.newInstance(type));
+            }
+        }));
+        threads.add(new Thread(() -> {
+            ProviderRegistryStressTest.await(start);
+
+            for (int write = 0; write < ProviderRegistryStressTest.WRITES / ProviderRegistryStressTest.TYPES.size(); write++) {
+                Map<Class<?>, Tuple2<InjectPriority, Object>> registrations = new LinkedHashMap<>();
+                for (Class<?> type : ProviderRegistryStressTest.TYPES) {
+                    registrations.put(type, new Tuple2<>(InjectPriority.HIGHEST, ProviderRegistryStressTest.newInstance(type)));
+                }
+
+                registry.putAll(registrations);
+            }
+        }));
+
+        threads.forEach(Thread::start);
+        start.countDown();
+
+        // The readers stop once both writers are done
+        for (Thread writer : threads.subList(ProviderRegistryStressTest.READERS, threads.size())) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread reader : threads.subList(0, ProviderRegistryStressTest.READERS)) {
+            reader.join();
+        }
+
+        assertEquals(0, missingCandidates.get(), "Resolutions without candidate out of " + resolutions.get());
+
+        // Once the writes are done, the resolution matches the registered classes
+        Tuple2<InjectPriority, Object> candidate = registry.resolve(Collection.class);
+        assertNotNull(candidate);
+        InjectPriority highestPriority = registry.getEntries().entrySet().stream()
+                .filter(entry -> Collection.class.isAssignableFrom(entry.getKey()))
+                .map(entry -> entry.getValue().getT1())
+                .max(Enum::compareTo)
+                .orElseThrow();
+        assertEquals(highestPriority, candidate.getT1());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Object newInstance(Class<?> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}